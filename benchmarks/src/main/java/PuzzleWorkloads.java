@@ -0,0 +1,166 @@
+/*
+Class: PuzzleWorkloads
+The benchmarks' view of the puzzle classes (see benchmarks.Workloads). The corpus is
+drawn from uniformly random board ranks (PermutationRank), keeping only boards whose
+shortest solution, looked up in the DistanceTable, falls in the chosen group.
+*/
+
+import benchmarks.Workloads;
+import java.util.SplittableRandom;
+
+public class PuzzleWorkloads implements Workloads
+{
+    private long[]          boardKeys;
+    private int[]           blankPositions;
+    private String[]        boardStrings;
+    private int[]           heuristicValues;    // Of the chosen heuristic
+    private Heuristic       heuristic;
+    private Successors      nextMoves;
+    private VisitedTable    visited;
+    private WideBoard[]     wideBoards;
+    private WideIDAStarSearch wideSolver;
+
+    // CONSTRUCTOR
+    public PuzzleWorkloads()
+    {
+        heuristic = new ManhattanHeuristic();
+        nextMoves = new Successors();
+    }
+
+    @Override
+    public void setUp(String group, long seed, int size)
+    {
+        int minLength;
+        int maxLength;
+        if(group.equals(SHORT))
+        {
+            minLength = 8;
+            maxLength = 12;
+        }
+        else if(group.equals(MEDIUM))
+        {
+            minLength = 18;
+            maxLength = 22;
+        }
+        else if(group.equals(LONG))
+        {
+            minLength = 27;
+            maxLength = 31;
+        }
+        else
+            throw new IllegalArgumentException("Unknown group: " + group);
+
+        DistanceTable table = DistanceTable.getInstance();
+        SplittableRandom random = new SplittableRandom(seed);
+        boardKeys = new long[size];
+        blankPositions = new int[size];
+        boardStrings = new String[size];
+        for(int x = 0; x < size; )
+        {
+            long boardKey = PermutationRank.unrank(random.nextInt(PermutationRank.numRanks()));
+            int length = table.distance(boardKey);
+            if(length < minLength || length > maxLength)
+                continue;
+            boardKeys[x] = boardKey;
+            blankPositions[x] = Board.findBlankPos(boardKey);
+            boardStrings[x] = new Board(boardKey).getBoardAsString();
+            x++;
+        }
+        useHeuristic("MANHATTAN");
+    }
+
+    @Override
+    public int size()
+    {
+        return boardKeys.length;
+    }
+
+    @Override
+    public Object newBoardFromKey(int i)
+    {
+        return new Board(boardKeys[i]);
+    }
+
+    @Override
+    public Object newBoardFromString(int i)
+    {
+        return new Board(boardStrings[i]);
+    }
+
+    @Override
+    public int generateSuccessors(int i)
+    {
+        return Board.generateSuccessors(boardKeys[i], blankPositions[i],
+                heuristicValues[i], heuristic, nextMoves);
+    }
+
+    @Override
+    public void useHeuristic(String name)
+    {
+        if(name.equals("MANHATTAN"))
+            heuristic = new ManhattanHeuristic();
+        else if(name.equals("LINEARCONFLICT"))
+            heuristic = new LinearConflictHeuristic();
+        else if(name.equals("WALKINGDISTANCE"))
+            heuristic = new WalkingDistanceHeuristic();
+        else
+            throw new IllegalArgumentException("Unknown heuristic: " + name);
+
+        heuristicValues = new int[boardKeys.length];
+        for(int x = 0; x < boardKeys.length; x++)
+            heuristicValues[x] = heuristic.estimate(boardKeys[x]);
+    }
+
+    @Override
+    public int estimate(int i)
+    {
+        return heuristic.estimate(boardKeys[i]);
+    }
+
+    @Override
+    public int fillVisitedTable(int expectedSize)
+    {
+        visited = new VisitedTable(expectedSize);
+        for(int x = 0; x < boardKeys.length; x++)
+            visited.insert(boardKeys[x], x, 0);     // Repeated boards are kept once
+        return visited.size();
+    }
+
+    @Override
+    public int findInVisitedTable()
+    {
+        int found = 0;
+        for(int x = 0; x < boardKeys.length; x++)
+        {
+            if(visited.find(boardKeys[x]) >= 0)
+                found++;
+        }
+        return found;
+    }
+
+    @Override
+    public int autoSolve(String mode, int i)
+    {
+        SearchTree st = new SearchTree(SearchMode.valueOf(mode), heuristic);
+        st.solve(new Node(new Board(boardKeys[i])));
+        return st.getNumMoves();
+    }
+
+    @Override
+    public void setUpWide(int width, int walkLength, long seed, int size)
+    {
+        PuzzleSpec puzzle = PuzzleSpec.forWidth(width);
+        SplittableRandom random = new SplittableRandom(seed);
+        wideBoards = new WideBoard[size];
+        for(int x = 0; x < size; x++)
+            wideBoards[x] = WideBoard.randomWalk(puzzle, walkLength, random);
+        wideSolver = new WideIDAStarSearch(puzzle);
+    }
+
+    @Override
+    public int wideSolve(int i)
+    {
+        wideSolver.solve(wideBoards[i]);
+        return wideSolver.getNumMoves();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+Class: BoardBenchmark
+Board construction (packing, blank search and heuristic value) and successor
+generation, the innermost loop of every solver. Each operation is one board of the
+corpus, so scores are per board.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark
+{
+    static final int CORPUSSIZE = 1024;
+
+    private Workloads workloads;
+
+    @Setup
+    public void setUp()
+    {
+        workloads = Workloads.Loader.load();
+        workloads.setUp(Workloads.MEDIUM, Workloads.SEED, CORPUSSIZE);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUSSIZE)
+    public void newBoardFromKey(Blackhole bh)
+    {
+        for(int x = 0; x < CORPUSSIZE; x++)
+            bh.consume(workloads.newBoardFromKey(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUSSIZE)
+    public void newBoardFromString(Blackhole bh)
+    {
+        for(int x = 0; x < CORPUSSIZE; x++)
+            bh.consume(workloads.newBoardFromString(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUSSIZE)
+    public int generateSuccessors()
+    {
+        int numSuccessors = 0;
+        for(int x = 0; x < CORPUSSIZE; x++)
+            numSuccessors += workloads.generateSuccessors(x);
+        return numSuccessors;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+Class: HeuristicBenchmark
+Full evaluation of every heuristic, and successor generation with it, which scores
+successors incrementally with Heuristic.update. Scores are per board.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark
+{
+    static final int CORPUSSIZE = 1024;
+
+    @Param({"MANHATTAN", "LINEARCONFLICT", "WALKINGDISTANCE"})
+    public String heuristic;
+
+    private Workloads workloads;
+
+    @Setup
+    public void setUp()
+    {
+        workloads = Workloads.Loader.load();
+        workloads.setUp(Workloads.MEDIUM, Workloads.SEED, CORPUSSIZE);
+        workloads.useHeuristic(heuristic);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUSSIZE)
+    public int estimate()
+    {
+        int sum = 0;
+        for(int x = 0; x < CORPUSSIZE; x++)
+            sum += workloads.estimate(x);
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CORPUSSIZE)
+    public int generateSuccessors()
+    {
+        int numSuccessors = 0;
+        for(int x = 0; x < CORPUSSIZE; x++)
+            numSuccessors += workloads.generateSuccessors(x);
+        return numSuccessors;
+    }
+}
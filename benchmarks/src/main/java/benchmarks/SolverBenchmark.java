@@ -0,0 +1,57 @@
+/*
+Class: SolverBenchmark
+End to end SearchTree.autoSolve with a Manhattan heuristic, per search mode and corpus
+group. Every invocation solves the next board of the corpus with a new SearchTree, so
+scores are the mean over the corpus, including allocating the search's tables.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark
+{
+    static final int CORPUSSIZE = 64;
+
+    @Param({"GREEDY", "ASTAR", "BIDIRECTIONAL", "BAE", "TABLE"})
+    public String mode;
+
+    @Param({Workloads.SHORT, Workloads.MEDIUM, Workloads.LONG})
+    public String group;
+
+    private Workloads workloads;
+    private int next;                   // Corpus index of the next board
+
+    @Setup
+    public void setUp()
+    {
+        workloads = Workloads.Loader.load();
+        workloads.setUp(group, Workloads.SEED, CORPUSSIZE);
+        next = 0;
+    }
+
+    @Benchmark
+    public int autoSolve()
+    {
+        int numMoves = workloads.autoSolve(mode, next);
+        next = (next + 1) % CORPUSSIZE;
+        return numMoves;
+    }
+}
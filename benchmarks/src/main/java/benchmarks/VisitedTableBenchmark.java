@@ -0,0 +1,59 @@
+/*
+Class: VisitedTableBenchmark
+Inserting the corpus into a new visited table and looking it up again. The table is
+either started small and grown while filling it (16) or allocated at
+Constants.HMAPSIZE (181440) up front, as the solvers do, which shows what the large
+initial size costs a search that only visits a few thousand boards. Scores are per
+invocation (CORPUSSIZE boards).
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VisitedTableBenchmark
+{
+    static final int CORPUSSIZE = 4096;
+
+    @Param({"16", "181440"})
+    public int expectedSize;
+
+    private Workloads workloads;
+
+    @Setup
+    public void setUp()
+    {
+        workloads = Workloads.Loader.load();
+        workloads.setUp(Workloads.MEDIUM, Workloads.SEED, CORPUSSIZE);
+        workloads.fillVisitedTable(expectedSize);
+    }
+
+    @Benchmark
+    public int insert()
+    {
+        return workloads.fillVisitedTable(expectedSize);
+    }
+
+    @Benchmark
+    public int find()
+    {
+        return workloads.findInVisitedTable();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+Class: WideSolverBenchmark
+WideIDAStarSearch on the 15 and 24 puzzles. The corpus is random walks from the goal
+board rather than uniformly random boards, which would take hours each on 5X5; every
+invocation solves the next board of the corpus with one reused solver.
+*/
+
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WideSolverBenchmark
+{
+    static final int CORPUSSIZE = 32;
+
+    @Param({"4", "5"})
+    public int width;
+
+    @Param({"30", "40"})
+    public int walkLength;
+
+    private Workloads workloads;
+    private int next;                   // Corpus index of the next board
+
+    @Setup
+    public void setUp()
+    {
+        workloads = Workloads.Loader.load();
+        workloads.setUpWide(width, walkLength, Workloads.SEED, CORPUSSIZE);
+        next = 0;
+    }
+
+    @Benchmark
+    public int wideSolve()
+    {
+        int numMoves = workloads.wideSolve(next);
+        next = (next + 1) % CORPUSSIZE;
+        return numMoves;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+Interface: Workloads
+The puzzle classes are in the default package, which JMH benchmarks (which must be in a
+named package) cannot import. The benchmarks therefore only see this interface; it is
+implemented by PuzzleWorkloads in the default package and loaded by name.
+
+A workload owns a fixed corpus of solvable 3X3 boards, built from a seed, so every run
+measures the same boards. Boards are addressed by their index in the corpus. A second
+corpus of WideBoards serves the larger puzzles.
+*/
+
+package benchmarks;
+
+public interface Workloads
+{
+    // Corpus groups, by number of moves of a shortest solution
+    String SHORT = "SHORT";             // 8 to 12 moves
+    String MEDIUM = "MEDIUM";           // 18 to 22 moves
+    String LONG = "LONG";               // 27 to 31 moves
+
+    // Fixed seed of the corpus, so committed results stay comparable
+    long SEED = 342L;
+
+    // Builds the corpus: size boards of the group, drawn from the seed
+    void setUp(String group, long seed, int size);
+
+    int size();
+
+    // @return board i built from its packed key
+    Object newBoardFromKey(int i);
+
+    // @return board i built from its board string
+    Object newBoardFromString(int i);
+
+    // Writes the successors of board i into a reused buffer
+    // @return number of successors
+    int generateSuccessors(int i);
+
+    // Chooses the heuristic used by estimate, generateSuccessors and autoSolve:
+    // MANHATTAN, LINEARCONFLICT or WALKINGDISTANCE
+    void useHeuristic(String name);
+
+    // @return heuristic value of board i
+    int estimate(int i);
+
+    // Inserts every board of the corpus into a new visited table of the given size
+    // @return number of boards in the table
+    int fillVisitedTable(int expectedSize);
+
+    // Looks up every board of the corpus in a table filled by fillVisitedTable
+    // @return number of boards found
+    int findInVisitedTable();
+
+    // Solves board i with a new SearchTree of the given SearchMode
+    // @return number of moves of the solution
+    int autoSolve(String mode, int i);
+
+    // Builds a corpus of WideBoards of the given width (5 for the 24 puzzle): size
+    // random walks of walkLength moves from the goal, drawn from the seed
+    void setUpWide(int width, int walkLength, long seed, int size);
+
+    // Solves wide board i with a WideIDAStarSearch reused across calls
+    // @return number of moves of the solution
+    int wideSolve(int i);
+
+    final class Loader
+    {
+        // @return a new PuzzleWorkloads
+        public static Workloads load()
+        {
+            try
+            {
+                return (Workloads) Class.forName("PuzzleWorkloads")
+                        .getDeclaredConstructor().newInstance();
+            }
+            catch(ReflectiveOperationException e)
+            {
+                throw new IllegalStateException("PuzzleWorkloads is not on the class path",
+                        e);
+            }
+        }
+
+        private Loader()
+        {}
+    }
+}
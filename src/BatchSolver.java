@@ -0,0 +1,305 @@
+/*
+Class: BatchSolver
+Headless batch mode: reads boards from a file or standard input, one board string per
+line (as entered in the console version, e.g. 245386107), solves them on all cores and
+writes one result line per board in input order:
+
+    board  moves  length  boards tried  time (ms)
+
+where moves are the letters of Constants.MOVELETTERS, one per move, in the direction
+the tile slides ("-" if the board is already solved). Boards that are impossible to
+solve or not valid boards are written as "unsolvable" or "invalid" with length -1.
+
+Boards are solved on a work stealing ForkJoinPool. Every worker thread keeps its own
+IDAStarSearch (with a linear conflict heuristic), which is reused for all its boards.
+At most a fixed window of boards is read ahead of the one being written, so memory
+stays bounded however long the input is.
+
+With -deadline, every board is instead given that many milliseconds of an ANYTIME
+SearchTree and the shortest solution found in time is written; it is not always the
+shortest solution, but no board takes much longer than the deadline. A board whose
+search finds no solution in time is written as "timeout" with length -1. With -first,
+the anytime search of every board stops at the first solution it finds (its
+SolutionListener ends the search), which is quick but often longer than the shortest.
+
+Widths too wide for a packed board (5, the 24 puzzle) are read as WideBoard strings
+(base 32 digits) and solved with a WideIDAStarSearch per worker; -deadline does not
+apply to them.
+
+    java BatchSolver [-threads N] [-width N] [-window N] [-deadline MS] [-first] [file]
+*/
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class BatchSolver
+{
+    private static final int WINDOWPERTHREAD = 64;
+
+    private ForkJoinPool                pool;
+    private int                         window;         // Most boards in flight
+    private ThreadLocal<IDAStarSearch>  solvers;        // One solver per worker
+    private long                        deadlineMillis; // Per board, 0 for none
+    private boolean                     firstSolution;  // Stop at the first solution
+    private PuzzleSpec                  widePuzzle;     // Of WideBoards, null for none
+    private ThreadLocal<WideIDAStarSearch> wideSolvers;
+
+    // CONSTRUCTOR
+    public BatchSolver(int numThreads, int window)
+    {
+        pool = new ForkJoinPool(numThreads);
+        this.window = window;
+        deadlineMillis = 0;
+        firstSolution = false;
+        widePuzzle = null;
+        solvers = new ThreadLocal<IDAStarSearch>()
+        {
+            @Override
+            protected IDAStarSearch initialValue()
+            {
+                return new IDAStarSearch(new LinearConflictHeuristic());
+            }
+        };
+    }
+
+    // Gives every board at most the given milliseconds of an anytime search instead
+    // of solving it with IDA*, 0 for no limit
+    public void setDeadline(long deadlineMillis)
+    {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    // Writes the first solution the anytime search of a board finds instead of the
+    // shortest one; the deadline, if any, still applies
+    public void setFirstSolution(boolean firstSolution)
+    {
+        this.firstSolution = firstSolution;
+    }
+
+    // Solves the boards as WideBoards of the given width instead of boards of the
+    // active puzzle
+    public void setWideWidth(int width)
+    {
+        widePuzzle = PuzzleSpec.forWidth(width);
+        final PuzzleSpec puzzle = widePuzzle;
+        wideSolvers = new ThreadLocal<WideIDAStarSearch>()
+        {
+            @Override
+            protected WideIDAStarSearch initialValue()
+            {
+                return new WideIDAStarSearch(puzzle);
+            }
+        };
+    }
+
+    // Solves every board read from in and writes the results to out in input order
+    // @return number of boards solved
+    public long solveAll(BufferedReader in, Writer out) throws IOException
+    {
+        ArrayDeque<ForkJoinTask<String>> pending = new ArrayDeque<>(window);
+        long numBoards = 0;
+        String line;
+        while((line = in.readLine()) != null)
+        {
+            final String boardString = line.trim();
+            if(boardString.isEmpty())
+                continue;
+
+            // Window full: write the oldest result before reading further
+            if(pending.size() == window)
+                writeResult(pending.poll(), out);
+
+            pending.add(pool.submit(new Callable<String>()
+            {
+                @Override
+                public String call()
+                {
+                    return solveBoard(boardString);
+                }
+            }));
+            numBoards++;
+        }
+
+        while(!pending.isEmpty())
+            writeResult(pending.poll(), out);
+        out.flush();
+        return numBoards;
+    }
+
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    private void writeResult(ForkJoinTask<String> result, Writer out) throws IOException
+    {
+        out.write(result.join());
+        out.write('\n');
+    }
+
+    // Solves one board with the worker's own solver
+    // @return result line of the board
+    private String solveBoard(String boardString)
+    {
+        if(widePuzzle != null)
+            return solveWideBoard(boardString);
+        if(!isValidBoard(boardString))
+            return boardString + " invalid -1 0 0";
+
+        Board board = new Board(boardString);
+        if(!board.isSolvable())
+            return boardString + " unsolvable -1 0 0";
+
+        IDAStarSearch solver = solvers.get();
+        long start = System.nanoTime();
+        Solution solution;
+        long numMovesTried;
+        if(deadlineMillis > 0 || firstSolution)
+        {
+            // The worker's heuristic is reused, the search tree is not reusable
+            final SearchTree st = new SearchTree(SearchMode.ANYTIME,
+                    solver.getHeuristic());
+            st.setDeadline(deadlineMillis);
+            if(firstSolution)
+            {
+                st.setSolutionListener(new SolutionListener()
+                {
+                    @Override
+                    public void solutionFound(Stack<Node> solutionPathStack,
+                                              boolean isShortest)
+                    {
+                        st.stop();
+                    }
+                });
+            }
+            solution = Solution.solve(st, new Node(board));
+            numMovesTried = st.getNumMovesTried();
+        }
+        else
+        {
+            solution = Solution.solve(solver, new Node(board));
+            numMovesTried = solver.getNumMovesTried();
+        }
+        long time = System.nanoTime() - start;
+
+        // The anytime search returns the path to its best board if time ran out first
+        if(!solution.isSolved())
+            return boardString + " timeout -1 " + numMovesTried + " " +
+                    String.format(Locale.ROOT, "%.3f", time / 1e6);
+        return resultLine(solution, numMovesTried, time);
+    }
+
+    // Solves one WideBoard with the worker's own solver
+    // @return result line of the board
+    private String solveWideBoard(String boardString)
+    {
+        WideBoard board;
+        try
+        {
+            board = WideBoard.parse(widePuzzle, boardString);
+        }
+        catch(IllegalArgumentException e)
+        {
+            return boardString + " invalid -1 0 0";
+        }
+        return WideIDAStarSearch.resultLine(board, wideSolvers.get());
+    }
+
+    // @return result line of a solved board
+    static String resultLine(Solution solution, long numMovesTried, long nanos)
+    {
+        return new Board(solution.getStartKey()).getBoardAsString() + " " + solution +
+                " " + solution.getLength() + " " + numMovesTried + " " +
+                String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    // @return true if the string has one digit (hexadecimal) per board position and
+    //         every tile exactly once
+    static boolean isValidBoard(String boardString)
+    {
+        if(boardString.length() != Constants.BOARDSIZE)
+            return false;
+
+        int seen = 0;                       // Bit set of tiles read
+        for(int x = 0; x < Constants.BOARDSIZE; x++)
+        {
+            int tile = Character.digit(boardString.charAt(x), 16);
+            if(tile < 0 || tile >= Constants.BOARDSIZE || (seen & (1 << tile)) != 0)
+                return false;
+            seen |= 1 << tile;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int window = 0;
+        long deadlineMillis = 0;
+        boolean firstSolution = false;
+        int width = Constants.puzzle.getWidth();
+        String fileName = null;
+        for(int x = 0; x < args.length; x++)
+        {
+            if(args[x].equals("-threads") && x + 1 < args.length)
+                numThreads = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-width") && x + 1 < args.length)
+            {
+                width = Integer.parseInt(args[++x]);
+                if(width <= PuzzleSpec.MAXPACKEDWIDTH)
+                    Constants.setPuzzleWidth(width);
+            }
+            else if(args[x].equals("-window") && x + 1 < args.length)
+                window = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-deadline") && x + 1 < args.length)
+                deadlineMillis = Long.parseLong(args[++x]);
+            else if(args[x].equals("-first"))
+                firstSolution = true;
+            else if(args[x].startsWith("-") && !args[x].equals("-"))
+            {
+                System.err.println("Usage: java BatchSolver [-threads N] [-width N] " +
+                        "[-window N] [-deadline MS] [-first] [file]");
+                return;
+            }
+            else
+                fileName = args[x];
+        }
+        if(window <= 0)
+            window = numThreads * WINDOWPERTHREAD;
+
+        BufferedReader in = (fileName == null || fileName.equals("-"))?
+                new BufferedReader(new InputStreamReader(System.in)):
+                new BufferedReader(new FileReader(fileName));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+
+        BatchSolver batchSolver = new BatchSolver(numThreads, window);
+        batchSolver.setDeadline(deadlineMillis);
+        batchSolver.setFirstSolution(firstSolution);
+        if(width > PuzzleSpec.MAXPACKEDWIDTH)
+            batchSolver.setWideWidth(width);
+        long start = System.currentTimeMillis();
+        try
+        {
+            long numBoards = batchSolver.solveAll(in, out);
+            System.err.println("Solved " + numBoards + " boards in " +
+                    (System.currentTimeMillis() - start) + " ms on " + numThreads +
+                    " threads.");
+        }
+        finally
+        {
+            batchSolver.shutdown();
+            in.close();
+        }
+    }
+}
@@ -1,46 +1,83 @@
 /*
 Class: Board
-This class will represent the 3X3 grid containing tiles numbered 1-8 and 0 (blank tile)
-and its heuristic value (closeness to win/goal).
+This class will represent the grid containing tiles numbered 1-8 (1-15 on a 4X4 board)
+and 0 (blank tile) and its heuristic value (closeness to win/goal). The board size and
+all geometry come from the active PuzzleSpec (Constants.puzzle).
+
+The board is packed into a single long (4 bits per cell, cell 0 in the lowest bits)
+which is used as the state key everywhere in the solver. The position of the blank
+tile is cached so moves never have to search for it. String and array forms are only
+built on demand for the GUI and console.
 
 Heuristic value is calculated by sum all the "city-block" distances of each tile from
 its end goal (i.e. if "7" is in the top left corner of the grid, its heuristic value is
-2 "city-blocks" from its goal position 2 spots down).
+2 "city-blocks" from its goal position 2 spots down). The blank spot is not counted, so
+every move changes the heuristic value by exactly 1. The solver itself may use any
+Heuristic, which successors update incrementally instead of scoring the whole board
+again.
 */
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
-
 public class Board
 {
-    private int[]   board;
-    private String  boardAsString;      // Hash key for hashmap
+    public static final int  BITSPERCELL = 4;
+    public static final long CELLMASK = 0xFL;
+
+    private static BoardGenerator randomBoards;     // Of new Board()
+
+    private long    boardKey;           // Packed board, hash key for hashmap
+    private int     blankPos;           // Cached position of blank tile
     private int     heuristicValue;
 
     // CONSTRUCTOR
     public Board()
     {
-        boardAsString = buildRandomBoard();
+        boardKey = buildRandomBoard();
+        blankPos = findBlankPos(boardKey);
         heuristicValue = calculateHeuristicValue();
     }
 
     // CHAINED CONSTRUCTOR Given user chosen board
     public Board(String userString)
     {
-        buildUserGivenBoard(userString);
-        boardAsString = userString;
+        boardKey = buildUserGivenBoard(userString);
+        blankPos = findBlankPos(boardKey);
+        heuristicValue = calculateHeuristicValue();
+    }
+
+    // CHAINED CONSTRUCTOR Given packed board
+    public Board(long boardKey)
+    {
+        this.boardKey = boardKey;
+        blankPos = findBlankPos(boardKey);
         heuristicValue = calculateHeuristicValue();
     }
 
+    // @return new integer array of the board, for display only
     public int[] getBoardArr()
     {
+        int[] board = new int[Constants.BOARDSIZE];
+        for(int x = 0; x < Constants.BOARDSIZE; x++)
+            board[x] = tileAt(boardKey, x);
         return board;
     }
 
+    // @return string of the board digits (hexadecimal, one per tile), for display only
     public String getBoardAsString()
     {
-        return boardAsString;
+        StringBuilder sb = new StringBuilder(Constants.BOARDSIZE);
+        for(int x = 0; x < Constants.BOARDSIZE; x++)
+            sb.append(Character.forDigit(tileAt(boardKey, x), 16));
+        return sb.toString();
+    }
+
+    public long getBoardKey()
+    {
+        return boardKey;
+    }
+
+    public int getBlankPos()
+    {
+        return blankPos;
     }
 
     public int getHeuristicValue()
@@ -48,206 +85,218 @@ public class Board
         return heuristicValue;
     }
 
-    // Creates a random string to represent the board and converts it to an integer array
-    // @return string representation of board
-    private String buildRandomBoard()
+    // @return true if the goal board can be reached from this board
+    public boolean isSolvable()
     {
-        board = new int[Constants.BOARDSIZE];
-
-        ArrayList<Integer> boardList = new ArrayList<>(Constants.BOARDSIZE);
-        for(int x = 0; x < Constants.BOARDSIZE; x++)
-            boardList.add(x);
+        return isSolvable(boardKey);
+    }
 
-        // Randomly shuffle array to get random board
-        Collections.shuffle(boardList, new Random(System.currentTimeMillis()));
+    // @return tile at the given position of a packed board
+    public static int tileAt(long boardKey, int pos)
+    {
+        return (int) ((boardKey >>> (pos * BITSPERCELL)) & CELLMASK);
+    }
 
-        return convertBoardArrToString(boardList);
+    // @return packed board after sliding the tile at tileToMovePos into the blank spot
+    public static long slideTile(long boardKey, int emptySpotPos, int tileToMovePos)
+    {
+        long tile = (boardKey >>> (tileToMovePos * BITSPERCELL)) & CELLMASK;
+        return (boardKey & ~(CELLMASK << (tileToMovePos * BITSPERCELL)))
+                | (tile << (emptySpotPos * BITSPERCELL));
     }
 
-    private String convertBoardArrToString(ArrayList<Integer> boardList)
+    // @return position of the blank tile in a packed board
+    public static int findBlankPos(long boardKey)
     {
-        String boardAsString = "";
-        // Copy board ArrayList to array and create string representation of board
         for(int x = 0; x < Constants.BOARDSIZE; x++)
         {
-            board[x] = boardList.get(x);
-            boardAsString = boardAsString + String.valueOf(board[x]);
+            if(tileAt(boardKey, x) == 0)
+                return x;
         }
-        return boardAsString;
+        return -1;
     }
 
-    // Converts user entered string representation of the board into an integer array
-    // @param userBoard
-    private void buildUserGivenBoard(String userBoard)
+    // @return packed goal board of the active puzzle
+    public static long goalBoardKey()
     {
-        board = new int[Constants.BOARDSIZE];
+        return Constants.puzzle.getGoalKey();
+    }
+
+    // Checks whether the goal board can be reached from a packed board, in O(n) for
+    // any board width and goal layout. Every move swaps the blank with a tile, so it
+    // flips the parity of the permutation taking each cell to its tile's goal cell and
+    // also flips the parity of the blank's city-block distance from its goal. A board
+    // is solvable exactly when the two parities are equal. The permutation parity is
+    // counted from its cycles instead of from its inversions.
+    // @return true if the board is solvable
+    public static boolean isSolvable(long boardKey)
+    {
+        PuzzleSpec puzzle = Constants.puzzle;
+        int visitedCells = 0;               // Bit set of cells already in a cycle
+        int numCycles = 0;
+        int blankDistance = 0;
+        for(int start = 0; start < Constants.BOARDSIZE; start++)
+        {
+            if((visitedCells & (1 << start)) != 0)
+                continue;
+
+            // Follow the cycle: each cell leads to the goal cell of its tile
+            numCycles++;
+            int pos = start;
+            while((visitedCells & (1 << pos)) == 0)
+            {
+                visitedCells |= 1 << pos;
+                int tile = tileAt(boardKey, pos);
+                if(tile == 0)
+                    blankDistance = puzzle.getDistance(0, pos);
+                pos = puzzle.getGoalPos(tile);
+            }
+        }
+
+        // A cycle of length k is k - 1 swaps
+        int permutationParity = (Constants.BOARDSIZE - numCycles) & 1;
+        return permutationParity == (blankDistance & 1);
+    }
+
+    // @return packed board of the given tile array
+    public static long packBoard(int[] board)
+    {
+        long boardKey = 0;
+        for(int x = 0; x < Constants.BOARDSIZE; x++)
+            boardKey |= ((long) board[x]) << (x * BITSPERCELL);
+        return boardKey;
+    }
+
+    // Creates a random board, which may be impossible to solve, from one generator
+    // shared by all boards, so boards created in the same millisecond still differ
+    // @return packed representation of board
+    private static synchronized long buildRandomBoard()
+    {
+        if(randomBoards == null || randomBoards.getWidth() != Constants.numCols)
+            randomBoards = new BoardGenerator();
+        return randomBoards.nextAnyKey();
+    }
+
+    // Converts user entered string representation of the board into a packed board
+    // @param userBoard: one digit per tile, hexadecimal (a-f) for tiles 10-15
+    private long buildUserGivenBoard(String userBoard)
+    {
+        long boardKey = 0;
         for(int x = 0; x < Constants.BOARDSIZE; x++)
         {
-            board[x] = Character.getNumericValue(userBoard.charAt(x));
+            long tile = Character.getNumericValue(userBoard.charAt(x));
+            boardKey |= tile << (x * BITSPERCELL);
         }
+        return boardKey;
     }
 
 
     // Calculate the heuristic value of the board by summing each tile's heuristic value
     // @return heuristic value of board
     private int calculateHeuristicValue()
+    {
+        return calculateHeuristicValue(boardKey);
+    }
+
+    // Calculate the heuristic value of a packed board by summing each tile's heuristic
+    // value, so the search can score boards without building a Board
+    // @return heuristic value of board
+    public static int calculateHeuristicValue(long boardKey)
     {
         int hvalue = 0;
         // Iterate through each tile and sum each tile's heuristic value
         for(int pos = 0; pos < Constants.BOARDSIZE; pos++)
         {
-            hvalue += tileHeuristicValue(pos);
+            int tile = tileAt(boardKey, pos);
+            if(tile != 0)   // The blank spot is not a tile
+                hvalue += tileHeuristicValue(pos, tile);
         }
         return hvalue;
     }
 
     // Calculate the specific tile's heuristic value - "city-block" distance from goal
     // @param arrPos: tile's current location in board array
+    // @param tile: tile at that location
     // @return tile's heuristic value
-    private int tileHeuristicValue(int arrPos)
+    static int tileHeuristicValue(int arrPos, int tile)
     {
-        // Determine tile's position (row, col) on the board
-        int currRow = Constants.arrToBoardRowMapping[arrPos];
-        int currCol = Constants.arrToBoardColMapping[arrPos];
-
-        // Determine tile's end goal (row, col) on the board
-        int tile = board[arrPos];
-        int goalRow = Constants.tileGoalRow[tile];
-        int goalCol = Constants.tileGoalCol[tile];
-
         // Heuristic Value = sum of city-block distances (differences) between rows and
-        // columns
-        int rowCityBlockDistance, colCityBlockDistance;
-        int tileHeuristicVal;
-
-        rowCityBlockDistance = Math.abs(goalRow - currRow);
-        colCityBlockDistance = Math.abs(goalCol - currCol);
-
-        tileHeuristicVal = rowCityBlockDistance + colCityBlockDistance;
-        return tileHeuristicVal;
+        // columns, precomputed by the PuzzleSpec
+        return Constants.puzzle.getDistance(tile, arrPos);
     }
 
-    // TO DO: SIMPLIFY WITH WRAPPER FUNCTION
-    // @return ArrayList of string representations of the board of all valid moves
-    //         after a move up, down, left and right. If invalid, null is added.
-    public ArrayList<String> getPotentialBoardMoves()
+    // @return positions of the tiles that can slide into the blank spot (shared table
+    //         of the PuzzleSpec, must not be modified)
+    public static int[] getSlidePositions(int blankPos)
     {
-        ArrayList<String> validBoardMoves = new ArrayList<>();
-        int tileToMovePos;
-        int emptySpotPos = findPositionOfTileInBoardArray(0);
-
-        // Determine which moves are valid to move into blank space(up, down, left, right)
-        // If valid, then add new board to arraylist and return, else add null
-
-        // move up (array position of tile to move is 3 more)
-        tileToMovePos = emptySpotPos + 3;
-        if(isValidBoardPosAndMove(emptySpotPos, tileToMovePos))
-        {
-            validBoardMoves.add(createNewBoardString(emptySpotPos, tileToMovePos));
-        }
-        else { validBoardMoves.add(null); }
-
-        // move down (array position of tile to move is 3 less)
-        tileToMovePos = emptySpotPos - 3;
-        if(isValidBoardPosAndMove(emptySpotPos, tileToMovePos))
-        {
-            validBoardMoves.add(createNewBoardString(emptySpotPos, tileToMovePos));
-        }
-        else { validBoardMoves.add(null); }
-
-        // move left (array position of tile to move is 1 more)
-        tileToMovePos = emptySpotPos + 1;
-        if(isValidBoardPosAndMove(emptySpotPos, tileToMovePos))
-        {
-            validBoardMoves.add(createNewBoardString(emptySpotPos, tileToMovePos));
-        }
-        else { validBoardMoves.add(null); }
-
-        // move right(array position of tile to move is 1 less)
-        tileToMovePos = emptySpotPos - 1;
-        if(isValidBoardPosAndMove(emptySpotPos, tileToMovePos))
-        {
-            validBoardMoves.add(createNewBoardString(emptySpotPos, tileToMovePos));
-        }
-        else { validBoardMoves.add(null); }
-
-        return validBoardMoves;
+        return Constants.puzzle.getSlidePositions(blankPos);
     }
 
-    // @returns true if the board position is within the bounds of the board
-    private Boolean isValidBoardPosAndMove(int emptySpotPos, int tileToMovePos)
+    // Writes all boards reachable in one move and their heuristic values into a caller
+    // provided buffer. This is the innermost loop of the solver and creates no objects.
+    // @param heuristicValue: value of the given heuristic for the given board
+    // @return number of successors written
+    public static int generateSuccessors(long boardKey, int blankPos, int heuristicValue,
+                                         Heuristic heuristic, Successors out)
     {
-        // Check edge cases: next to each other in array, but not swappable
-        if((emptySpotPos == 2 && tileToMovePos == 3) ||
-           (emptySpotPos == 3 && tileToMovePos == 2) ||
-           (emptySpotPos == 5 && tileToMovePos == 6) ||
-           (emptySpotPos == 6 && tileToMovePos == 5))
-            return false;
-
-        return (tileToMovePos >= 0 && tileToMovePos < Constants.BOARDSIZE);
+        PuzzleSpec puzzle = Constants.puzzle;
+        int[] positions = puzzle.getSlidePositions(blankPos);
+        int[] moves = puzzle.getSlideMoves(blankPos);
+        for(int x = 0; x < positions.length; x++)
+        {
+            int tileToMovePos = positions[x];
+            int tile = tileAt(boardKey, tileToMovePos);
+            long childKey = slideTile(boardKey, blankPos, tileToMovePos);
+            out.set(x, childKey, tileToMovePos, moves[x],
+                    heuristic.update(heuristicValue, childKey, tile, tileToMovePos,
+                                     blankPos));
+        }
+        out.setSize(positions.length);
+        return positions.length;
     }
 
-
-    // @return new board string after move if valid, otherwise null
+    // @return new board after move if valid, otherwise null
     // @param tileToMove
-    public String makeMove(int tile)
+    public Board makeMove(int tile)
     {
         int tileToMovePos = findPositionOfTileInBoardArray(tile);
-        int emptySpotPos = findPositionOfTileInBoardArray(0);
+        int emptySpotPos = blankPos;
 
         // If tileToMove is adjacent to the empty spot, then make move, return new board
         // If not a valid move, return null
         if(isValidMove(emptySpotPos, tileToMovePos))
         {
-            return createNewBoardString(emptySpotPos, tileToMovePos);
+            return new Board(slideTile(boardKey, emptySpotPos, tileToMovePos));
         }
-        return "";
+        return null;
     }
 
     // Checks to see if tileToMove is adjacent to empty spot
     // @return true if valid move
-    private Boolean isValidMove(int emptySpotPos, int tileToMovePos)
-    {
-        // Check edge cases: next to each other in array, but not swappable
-        if((emptySpotPos == 2 && tileToMovePos == 3) ||
-           (emptySpotPos == 3 && tileToMovePos == 2) ||
-           (emptySpotPos == 5 && tileToMovePos == 6) ||
-           (emptySpotPos == 6 && tileToMovePos == 5))
-            return false;
-
-        int move = tileToMovePos - emptySpotPos;
-        return (move == Constants.MOVEUP || move == Constants.MOVEDOWN ||
-                move == Constants.MOVELEFT || move == Constants.MOVERIGHT);
-    }
-
-    // @returns string representation of board given a new move
-    private String createNewBoardString(int emptySpotPos, int tileToMovePos)
+    private boolean isValidMove(int emptySpotPos, int tileToMovePos)
     {
-        // Convert original board string to char array for swap
-        char[] originalBoard = boardAsString.toCharArray();
-
-        // Swap blank space and tile to move
-        originalBoard[emptySpotPos] = originalBoard[tileToMovePos];
-        originalBoard[tileToMovePos] = '0';
-
-        String newBoardString = new String(originalBoard);
-        return newBoardString;
+        for(int pos: Constants.puzzle.getSlidePositions(emptySpotPos))
+        {
+            if(pos == tileToMovePos)
+                return true;
+        }
+        return false;
     }
 
     // @return position of given tile in board array
     public int findPositionOfTileInBoardArray(int tile)
     {
-        // Iterate through array to find position of tile in board array
+        // Iterate through packed board to find position of tile
         for(int x = 0; x < Constants.BOARDSIZE; x++)
         {
-            if(board[x] == tile)
+            if(tileAt(boardKey, x) == tile)
                 return x;
         }
 
         return -1;
     }
 
-    // @return a string to print the 3X3 board
+    // @return a string to print the board
     public String toString()
     {
         String grid = "";
@@ -258,10 +307,13 @@ public class Board
             grid = grid + "   ";
             for(int y = 0; y < Constants.numCols; y++, i++)
             {
-                if(board[i] == 0)
+                int tile = tileAt(boardKey, i);
+                if(tile == 0)
                     grid = grid + "  ";
                 else
-                    grid = grid + board[i] + " ";
+                    grid = grid + tile + " ";
+                if(Constants.BOARDSIZE > 10 && tile < 10)
+                    grid = grid + " ";      // Line up 1 and 2 digit tiles
             }
             grid = grid + "\n";
         }
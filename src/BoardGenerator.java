@@ -0,0 +1,355 @@
+/*
+Class: BoardGenerator
+Fast generator of random boards for load tests and benchmarks. Boards come as packed
+keys (see Board) from a SplittableRandom, so a generator built from the same seed always
+produces the same boards, and split() gives independent generators for other threads.
+
+nextSolvableKey() shuffles the tiles and, if the board cannot reach the goal, swaps two
+tiles, which flips its parity. Every unsolvable board is paired with exactly one
+solvable board this way, so the result is uniform over all solvable boards. Nothing but
+the generator's tile array is touched, so millions of boards per second can be made.
+
+nextKey(minLength, maxLength) targets a band of shortest solution lengths:
+- 3X3 boards: every reachable board is grouped by its distance from the goal once (a
+  breadth first search over PermutationRank), and a board is drawn uniformly from the
+  band.
+- Larger boards: a random walk of maxLength moves from the goal board (never undoing
+  the last move) is kept if the linear conflict heuristic, which never overestimates,
+  says at least minLength moves are needed. The shortest solution is then within the
+  band, but boards are not drawn uniformly, and bands far above the heuristic's reach
+  take many walks.
+
+    java BoardGenerator [-seed N] [-count N] [-width N] [-min N] [-max N]
+
+prints count board strings (solvable, in the band if given), one per line, as read by
+BatchSolver.
+*/
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+public class BoardGenerator
+{
+    private SplittableRandom    random;
+    private PuzzleSpec          puzzle;         // Of the boards made
+    private int[]               tiles;          // Reused for every shuffle
+    private Heuristic           lowerBound;     // For bands without a distance table
+
+    // Ranks of all 3X3 boards grouped by distance (index), built on first use
+    private static class Levels
+    {
+        static final int[][] RANKS = buildLevels();
+    }
+
+    // CONSTRUCTOR Seeded from the clock and other randomness, different every run
+    public BoardGenerator()
+    {
+        this(new SplittableRandom());
+    }
+
+    // CHAINED CONSTRUCTOR Given seed, for reproducible boards
+    public BoardGenerator(long seed)
+    {
+        this(new SplittableRandom(seed));
+    }
+
+    private BoardGenerator(SplittableRandom random)
+    {
+        this.random = random;
+        puzzle = Constants.puzzle;
+        tiles = new int[puzzle.getBoardSize()];
+        lowerBound = null;
+    }
+
+    // @return a new generator with its own random numbers, for another thread
+    public BoardGenerator split()
+    {
+        return new BoardGenerator(random.split());
+    }
+
+    // @return width of the boards made, the active puzzle's when the generator was
+    //         created
+    public int getWidth()
+    {
+        return puzzle.getWidth();
+    }
+
+    // @return a uniformly random board, which may be impossible to solve
+    public long nextAnyKey()
+    {
+        // Fisher-Yates shuffle
+        for(int x = 0; x < tiles.length; x++)
+            tiles[x] = x;
+        for(int x = tiles.length - 1; x > 0; x--)
+        {
+            int y = random.nextInt(x + 1);
+            int tile = tiles[x];
+            tiles[x] = tiles[y];
+            tiles[y] = tile;
+        }
+
+        long boardKey = 0;
+        for(int x = 0; x < tiles.length; x++)
+            boardKey |= ((long) tiles[x]) << (x * Board.BITSPERCELL);
+        return boardKey;
+    }
+
+    // @return a uniformly random board that can be solved
+    public long nextSolvableKey()
+    {
+        long boardKey = nextAnyKey();
+        if(Board.isSolvable(boardKey))
+            return boardKey;
+
+        // Swap the tiles of the first two cells that are not the blank spot
+        int first = (Board.tileAt(boardKey, 0) == 0)? 1: 0;
+        int second = (Board.tileAt(boardKey, first + 1) == 0)? first + 2: first + 1;
+        return swapCells(boardKey, first, second);
+    }
+
+    // @return a solvable board whose shortest solution has between minLength and
+    //         maxLength moves
+    public long nextKey(int minLength, int maxLength)
+    {
+        if(minLength < 0 || minLength > maxLength)
+            throw new IllegalArgumentException("Bad solution length band: " +
+                    minLength + " to " + maxLength);
+
+        if(puzzle.getBoardSize() == 9 && Constants.BOARDSIZE == 9)
+        {
+            int[][] levels = Levels.RANKS;
+            int max = Math.min(maxLength, levels.length - 1);
+            int numBoards = 0;
+            for(int d = minLength; d <= max; d++)
+                numBoards += levels[d].length;
+            if(numBoards == 0)
+                throw new IllegalArgumentException("No board needs " + minLength +
+                        " to " + maxLength + " moves");
+
+            // Uniform over the band: pick an index among all its boards
+            int index = random.nextInt(numBoards);
+            int d = minLength;
+            while(index >= levels[d].length)
+                index -= levels[d++].length;
+            return PermutationRank.unrank(levels[d][index]);
+        }
+
+        if(lowerBound == null)
+            lowerBound = new LinearConflictHeuristic();
+        while(true)
+        {
+            long boardKey = randomWalkKey(maxLength);
+            if(lowerBound.estimate(boardKey) >= minLength)
+                return boardKey;
+        }
+    }
+
+    // @return the board reached from the goal board by a random walk of the given
+    //         number of moves, never moving a tile straight back; it is solved in at
+    //         most that many moves
+    public long randomWalkKey(int numMoves)
+    {
+        long boardKey = puzzle.getGoalKey();
+        int blankPos = puzzle.getGoalPos(0);
+        int lastBlankPos = -1;
+        for(int x = 0; x < numMoves; x++)
+        {
+            int[] positions = puzzle.getSlidePositions(blankPos);
+            int tileToMovePos;
+            do
+                tileToMovePos = positions[random.nextInt(positions.length)];
+            while(tileToMovePos == lastBlankPos);
+
+            boardKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+            lastBlankPos = blankPos;
+            blankPos = tileToMovePos;
+        }
+        return boardKey;
+    }
+
+    // @return stream of count solvable boards. A parallel stream splits the
+    //         generator, so it is reproducible for the same seed and split sizes.
+    public LongStream solvableKeys(long count)
+    {
+        return StreamSupport.longStream(new KeySpliterator(this, 0, count, -1, -1),
+                                        false);
+    }
+
+    // @return stream of count boards in a band of solution lengths (see nextKey)
+    public LongStream keys(long count, int minLength, int maxLength)
+    {
+        return StreamSupport.longStream(
+                new KeySpliterator(this, 0, count, minLength, maxLength), false);
+    }
+
+    private static long swapCells(long boardKey, int first, int second)
+    {
+        long firstTile = (boardKey >>> (first * Board.BITSPERCELL)) & Board.CELLMASK;
+        long secondTile = (boardKey >>> (second * Board.BITSPERCELL)) & Board.CELLMASK;
+        long diff = firstTile ^ secondTile;
+        return boardKey ^ (diff << (first * Board.BITSPERCELL))
+                        ^ (diff << (second * Board.BITSPERCELL));
+    }
+
+    // Breadth first search from the goal board over all reachable 3X3 boards
+    // @return ranks of the boards at each distance (index)
+    private static int[][] buildLevels()
+    {
+        int numRanks = PermutationRank.numRanks();
+        int[] queue = new int[numRanks];
+        boolean[] seen = new boolean[numRanks];
+        int head = 0;
+        int tail = 0;
+        int goal = PermutationRank.rank(Board.goalBoardKey());
+        seen[goal] = true;
+        queue[tail++] = goal;
+
+        List<int[]> levels = new ArrayList<int[]>();
+        while(head < tail)
+        {
+            int levelEnd = tail;
+            levels.add(Arrays.copyOfRange(queue, head, levelEnd));
+            for(; head < levelEnd; head++)
+            {
+                long boardKey = PermutationRank.unrank(queue[head]);
+                int blankPos = Board.findBlankPos(boardKey);
+                for(int tileToMovePos: Board.getSlidePositions(blankPos))
+                {
+                    int child = PermutationRank.rank(
+                            Board.slideTile(boardKey, blankPos, tileToMovePos));
+                    if(!seen[child])
+                    {
+                        seen[child] = true;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+        }
+        return levels.toArray(new int[levels.size()][]);
+    }
+
+    // Boards index to end of a stream; splitting hands the first half to a split
+    // generator
+    private static class KeySpliterator implements Spliterator.OfLong
+    {
+        private BoardGenerator  generator;
+        private long            index;
+        private long            end;
+        private int             minLength;          // -1 for any solvable board
+        private int             maxLength;
+
+        KeySpliterator(BoardGenerator generator, long index, long end, int minLength,
+                       int maxLength)
+        {
+            this.generator = generator;
+            this.index = index;
+            this.end = end;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        private long next()
+        {
+            return (minLength < 0)? generator.nextSolvableKey():
+                   generator.nextKey(minLength, maxLength);
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action)
+        {
+            if(index >= end)
+                return false;
+            action.accept(next());
+            index++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action)
+        {
+            for(; index < end; index++)
+                action.accept(next());
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit()
+        {
+            long middle = (index + end) >>> 1;
+            if(middle <= index)
+                return null;
+            KeySpliterator prefix = new KeySpliterator(generator.split(), index, middle,
+                                                       minLength, maxLength);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long seed = 0;
+        boolean seeded = false;
+        long count = 10;
+        int minLength = -1;
+        int maxLength = -1;
+        for(int x = 0; x < args.length; x++)
+        {
+            if(args[x].equals("-seed") && x + 1 < args.length)
+            {
+                seed = Long.parseLong(args[++x]);
+                seeded = true;
+            }
+            else if(args[x].equals("-count") && x + 1 < args.length)
+                count = Long.parseLong(args[++x]);
+            else if(args[x].equals("-width") && x + 1 < args.length)
+                Constants.setPuzzleWidth(Integer.parseInt(args[++x]));
+            else if(args[x].equals("-min") && x + 1 < args.length)
+                minLength = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-max") && x + 1 < args.length)
+                maxLength = Integer.parseInt(args[++x]);
+            else
+            {
+                System.err.println("Usage: java BoardGenerator [-seed N] [-count N] " +
+                        "[-width N] [-min N] [-max N]");
+                return;
+            }
+        }
+        if(minLength >= 0 && maxLength < 0)
+            maxLength = Constants.IDASTARMAXDEPTH;
+        else if(maxLength >= 0 && minLength < 0)
+            minLength = 0;
+
+        BoardGenerator generator = seeded? new BoardGenerator(seed): new BoardGenerator();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+        for(long x = 0; x < count; x++)
+        {
+            long boardKey = (minLength < 0)? generator.nextSolvableKey():
+                            generator.nextKey(minLength, maxLength);
+            for(int pos = 0; pos < Constants.BOARDSIZE; pos++)
+                out.write(Character.forDigit(Board.tileAt(boardKey, pos), 16));
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+Class: BucketQueue
+This class is the open list of the A* search in SearchTree. Since f = g + h is a small
+non-negative integer, nodes are kept in one bucket per f value (and per g value inside
+it) instead of a binary heap, which makes adding and polling a node O(1).
+
+Nodes with the lowest f are polled first. Among them, nodes with the highest g (the
+ones closest to the goal) are polled first when preferHigherG is set, otherwise the
+ones with the lowest g. Nodes with the same f and g are polled last in, first out.
+*/
+
+import java.util.Arrays;
+
+public class BucketQueue
+{
+    private static final int INITIALSTACK = 16;
+
+    private boolean     preferHigherG;
+    private int[][][]   buckets;        // buckets[f][g] is a stack of node indexes
+    private int[][]     bucketSizes;    // bucketSizes[f][g]
+    private int[]       fSizes;         // number of nodes with a given f
+    private int[]       highG;          // highest g that may be non-empty for a given f
+    private int[]       lowG;           // lowest g that may be non-empty for a given f
+    private int         minF;           // no node has a lower f than this
+    private int         size;
+    private int         peakSize;       // most nodes held at once
+
+    // CONSTRUCTOR
+    public BucketQueue(boolean preferHigherG)
+    {
+        this.preferHigherG = preferHigherG;
+        buckets = new int[0][][];
+        bucketSizes = new int[0][];
+        fSizes = new int[0];
+        highG = new int[0];
+        lowG = new int[0];
+        minF = 0;
+        size = 0;
+        peakSize = 0;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // @return most nodes held at once since the queue was created
+    public int getPeakSize()
+    {
+        return peakSize;
+    }
+
+    // @return approximate number of bytes held by the buckets
+    public long memoryBytes()
+    {
+        long bytes = 0;
+        for(int f = 0; f < buckets.length; f++)
+        {
+            bytes += 4L * bucketSizes[f].length;
+            for(int g = 0; g < buckets[f].length; g++)
+                bytes += 4L * buckets[f][g].length;
+        }
+        return bytes;
+    }
+
+    public void clear()
+    {
+        for(int f = 0; f < fSizes.length; f++)
+        {
+            Arrays.fill(bucketSizes[f], 0);
+            fSizes[f] = 0;
+            highG[f] = 0;
+            lowG[f] = Integer.MAX_VALUE;
+        }
+        minF = 0;
+        size = 0;
+    }
+
+    // Adds a node index with the given (non-negative) f and g values
+    public void add(int nodeIndex, int f, int g)
+    {
+        if(f >= fSizes.length)
+            growF(f);
+        if(g >= bucketSizes[f].length)
+            growG(f, g);
+
+        int[] bucket = buckets[f][g];
+        int bucketSize = bucketSizes[f][g];
+        if(bucketSize == bucket.length)
+        {
+            bucket = Arrays.copyOf(bucket, bucketSize * 2);
+            buckets[f][g] = bucket;
+        }
+        bucket[bucketSize] = nodeIndex;
+        bucketSizes[f][g] = bucketSize + 1;
+
+        fSizes[f]++;
+        if(g > highG[f])
+            highG[f] = g;
+        if(g < lowG[f])
+            lowG[f] = g;
+        if(f < minF || size == 0)
+            minF = f;
+        size++;
+        if(size > peakSize)
+            peakSize = size;
+    }
+
+    // @return f of the next node to be polled
+    public int peekF()
+    {
+        advanceMinF();
+        return minF;
+    }
+
+    // Removes the next node, the one with the lowest f
+    // @return node index
+    public int poll()
+    {
+        advanceMinF();
+        int f = minF;
+        int[] sizes = bucketSizes[f];
+
+        int g;
+        if(preferHigherG)
+        {
+            g = highG[f];
+            while(sizes[g] == 0)
+                g--;
+            highG[f] = g;
+        }
+        else
+        {
+            g = lowG[f];
+            while(sizes[g] == 0)
+                g++;
+            lowG[f] = g;
+        }
+
+        sizes[g]--;
+        fSizes[f]--;
+        size--;
+        if(fSizes[f] == 0)
+        {
+            highG[f] = 0;
+            lowG[f] = Integer.MAX_VALUE;
+        }
+        return buckets[f][g][sizes[g]];
+    }
+
+    private void advanceMinF()
+    {
+        while(fSizes[minF] == 0)
+            minF++;
+    }
+
+    private void growF(int f)
+    {
+        int oldLength = fSizes.length;
+        int newLength = Math.max(f + 1, oldLength * 2);
+        buckets = Arrays.copyOf(buckets, newLength);
+        bucketSizes = Arrays.copyOf(bucketSizes, newLength);
+        fSizes = Arrays.copyOf(fSizes, newLength);
+        highG = Arrays.copyOf(highG, newLength);
+        lowG = Arrays.copyOf(lowG, newLength);
+        for(int x = oldLength; x < newLength; x++)
+        {
+            buckets[x] = new int[0][];
+            bucketSizes[x] = new int[0];
+            lowG[x] = Integer.MAX_VALUE;
+        }
+    }
+
+    private void growG(int f, int g)
+    {
+        int oldLength = bucketSizes[f].length;
+        int newLength = Math.max(g + 1, oldLength * 2);
+        buckets[f] = Arrays.copyOf(buckets[f], newLength);
+        bucketSizes[f] = Arrays.copyOf(bucketSizes[f], newLength);
+        for(int x = oldLength; x < newLength; x++)
+            buckets[f][x] = new int[INITIALSTACK];
+    }
+}
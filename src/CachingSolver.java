@@ -0,0 +1,42 @@
+/*
+Class: CachingSolver
+A Solver that answers from a SolutionCache when it can and otherwise asks another
+solver, then caches the solution it found. Only paths that end at the goal board are
+cached, so the best board paths returned for impossible boards are never reused.
+*/
+
+import java.util.Stack;
+
+public class CachingSolver implements Solver
+{
+    private Solver          solver;
+    private SolutionCache   cache;
+
+    // CONSTRUCTOR
+    public CachingSolver(Solver solver, SolutionCache cache)
+    {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    public SolutionCache getCache()
+    {
+        return cache;
+    }
+
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        Board rootBoard = rootNode.getBoard();
+        Stack<Node> solutionPathStack = cache.getSolutionPath(rootBoard);
+        if(solutionPathStack != null)
+            return solutionPathStack;
+
+        solutionPathStack = solver.solve(rootNode);
+        long lastBoardKey = solutionPathStack.isEmpty()? rootBoard.getBoardKey():
+                solutionPathStack.firstElement().getBoardKey();
+        if(lastBoardKey == Board.goalBoardKey())
+            cache.put(rootBoard, solutionPathStack);
+        return solutionPathStack;
+    }
+}
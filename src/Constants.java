@@ -1,32 +1,85 @@
 // TO DO
 
 
-import static java.lang.Math.sqrt;
-
 public final class Constants
 {
-    public static int BOARDSIZE = 9;
-    public static int numRows = (int) sqrt(Constants.BOARDSIZE);
-    public static int numCols = (int) sqrt(Constants.BOARDSIZE);
+    // Moves are named after the direction the tile slides into the blank spot
+    public static final int MOVEUP = 0;
+    public static final int MOVEDOWN = 1;
+    public static final int MOVELEFT = 2;
+    public static final int MOVERIGHT = 3;
+    public static final int NUMMOVES = 4;
+
+    // One letter per move (index), used to write solutions as text
+    public static final String MOVELETTERS = "UDLR";
+
+    // Given a move (index), these arrays give the row and column offset from the blank
+    // spot to the tile that slides into it
+    public static int[] moveRowOffset = {1, -1, 0, 0};
+    public static int[] moveColOffset = {0, 0, 1, -1};
+
+    // Active puzzle definition (3X3 unless changed with setPuzzleWidth). The fields
+    // below are copied from it.
+    public static PuzzleSpec puzzle = PuzzleSpec.forWidth(3);
+
+    public static int BOARDSIZE = puzzle.getBoardSize();
+    public static int numRows = puzzle.getWidth();
+    public static int numCols = puzzle.getWidth();
 
 
     // Maps board array's current position to its row and column position on the board
-    public static int[] arrToBoardRowMapping = {0, 0, 0, 1, 1, 1, 2, 2, 2};
-    public static int[] arrToBoardColMapping = {0, 1, 2, 0, 1, 2, 0, 1, 2};
+    public static int[] arrToBoardRowMapping = puzzle.getRowOf();
+    public static int[] arrToBoardColMapping = puzzle.getColOf();
 
     // Given a tile number (index), these arrays will give tile's end goal row and column
-    public static int[] tileGoalRow = {2, 0, 0, 0, 1, 1, 1, 2, 2};
-    public static int[] tileGoalCol = {2, 0, 1, 2, 0, 1, 2, 0, 1};
+    public static int[] tileGoalRow = puzzle.getGoalRow();
+    public static int[] tileGoalCol = puzzle.getGoalCol();
+
+    // Longest solution IDA* searches for: every solvable board is solved in at most this
+    // many moves (31 for 3X3, 80 for 4X4)
+    public static int IDASTARMAXDEPTH = puzzle.getMaxSolutionLength();
+
+    // Most boards a search tries on a board that is impossible to solve before giving
+    // up and returning the best board found so far
+    public static int UNSOLVABLESEARCHLIMIT = 20000;
+
+    // Most nodes SMAStarSearch keeps at once (SMAStarSearch.NODEBYTES each)
+    public static int SMASTARMAXNODES = 250000;
+
+    // Most boards kept by the GUI's SolutionCache (about 90 bytes each)
+    public static int SOLUTIONCACHESIZE = 100000;
+
+    // Weight of the heuristic value in ANYTIME mode: higher finds the first solution
+    // sooner, but it is usually longer
+    public static double ANYTIMEWEIGHT = 2.0;
+
+    // Boards a search expands between progress reports and interrupt checks (a power
+    // of 2)
+    public static final int PROGRESSINTERVAL = 4096;
 
-    // TO DO
-    public static int MOVEUP = (int) sqrt(Constants.BOARDSIZE) * -1;
-    public static int MOVEDOWN = (int) sqrt(Constants.BOARDSIZE);
-    public static int MOVELEFT = -1;
-    public static int MOVERIGHT = 1;
+    // Visited table initial size: number of boards reachable from any 3X3 board (9!/2),
+    // so a search never has to resize the table
+    public static int HMAPSIZE = 181440;
 
-    // HashMap initial size
-    public static int HMAPSIZE = 200000;
 
+    // Switches the active puzzle, i.e. to 4 for the 15 puzzle. Heuristics and searches
+    // read the tables when they are created, so create them after switching.
+    // Only puzzles whose boards fit a packed key can be active (see PuzzleSpec).
+    public static void setPuzzleWidth(int width)
+    {
+        if(width > PuzzleSpec.MAXPACKEDWIDTH)
+            throw new IllegalArgumentException("Board width must be at most " +
+                    PuzzleSpec.MAXPACKEDWIDTH + " (see WideBoard): " + width);
+        puzzle = PuzzleSpec.forWidth(width);
+        BOARDSIZE = puzzle.getBoardSize();
+        numRows = puzzle.getWidth();
+        numCols = puzzle.getWidth();
+        arrToBoardRowMapping = puzzle.getRowOf();
+        arrToBoardColMapping = puzzle.getColOf();
+        tileGoalRow = puzzle.getGoalRow();
+        tileGoalCol = puzzle.getGoalCol();
+        IDASTARMAXDEPTH = puzzle.getMaxSolutionLength();
+    }
 
     private Constants()
     {}
@@ -0,0 +1,151 @@
+/*
+Class: DistanceTable
+Exact number of moves to the goal for every 3X3 board reachable from it, found once by
+a breadth first search back from the goal board (Constants.tileGoalRow/tileGoalCol)
+over the boards numbered by PermutationRank.
+
+Each distance is stored modulo 15 in 4 bits (0xF marks a board not reached yet), which
+fits all 181,440 boards in about 90 KB. Every move changes the distance by exactly 1, so
+that is enough to walk a shortest path: from any board, the next board is the neighbor
+whose stored value is one less. Solving is then about 30 table lookups whatever the
+board.
+
+The table is for the 3X3 puzzle only; getInstance() and the PermutationRank lookups of
+every solve throw IllegalStateException while another puzzle is active.
+*/
+
+import java.util.Arrays;
+import java.util.Stack;
+
+public class DistanceTable implements Solver
+{
+    private static final int MODULUS = 15;
+    private static final int UNSEEN = 0xF;
+
+    private byte[]  distances;          // Two 4 bit entries per byte
+    private long    goalKey;
+
+    // Builds the table on first use; it is shared by all callers
+    private static class Holder
+    {
+        static final DistanceTable INSTANCE = new DistanceTable();
+    }
+
+    // @return the shared table, built on first call
+    // @throws IllegalStateException if the active puzzle is not 3X3
+    public static DistanceTable getInstance()
+    {
+        if(!isSupported())
+            throw new IllegalStateException("DistanceTable solves 3X3 boards, not " +
+                    Constants.numRows + "X" + Constants.numCols);
+        return Holder.INSTANCE;
+    }
+
+    // @return true if the table can solve boards of the size in Constants
+    public static boolean isSupported()
+    {
+        return Constants.BOARDSIZE == 9;
+    }
+
+    // CONSTRUCTOR
+    private DistanceTable()
+    {
+        int numRanks = PermutationRank.numRanks();
+        distances = new byte[(numRanks + 1) / 2];
+        Arrays.fill(distances, (byte) 0xFF);
+
+        int[] queue = new int[numRanks];
+        int head = 0;
+        int tail = 0;
+        goalKey = Board.goalBoardKey();
+        int goal = PermutationRank.rank(goalKey);
+        setEntry(goal, 0);
+        queue[tail++] = goal;
+
+        while(head < tail)
+        {
+            int rank = queue[head++];
+            int next = (getEntry(rank) + 1) % MODULUS;
+            long boardKey = PermutationRank.unrank(rank);
+            int blankPos = Board.findBlankPos(boardKey);
+            for(int tileToMovePos: Board.getSlidePositions(blankPos))
+            {
+                int child = PermutationRank.rank(
+                        Board.slideTile(boardKey, blankPos, tileToMovePos));
+                if(getEntry(child) == UNSEEN)
+                {
+                    setEntry(child, next);
+                    queue[tail++] = child;
+                }
+            }
+        }
+    }
+
+    // @return number of moves of a shortest solution, or -1 if the board cannot reach
+    //         the goal
+    public int distance(long boardKey)
+    {
+        Node node = walk(new Node(new Board(boardKey)));
+        int distance = (node == null)? -1: 0;
+        for(; node != null && node.getParent() != null; node = node.getParent())
+            distance++;
+        return distance;
+    }
+
+    // Walks a shortest path to the goal
+    // @return solution path, or an empty stack if the board cannot reach the goal
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        Node node = walk(rootNode);
+        Stack<Node> solutionPathStack = new Stack<Node>();
+        if(node == null)
+            return solutionPathStack;
+        for(; node.getParent() != null; node = node.getParent())
+            solutionPathStack.push(node);
+        return solutionPathStack;
+    }
+
+    // Walks a shortest path to the goal
+    // @return goal node linked to its parents back to the root node, or null if the
+    //         board cannot reach the goal
+    public Node walk(Node rootNode)
+    {
+        long boardKey = rootNode.getBoardKey();
+        if(!PermutationRank.isRanked(boardKey))
+            return null;
+
+        int blankPos = rootNode.getBoard().getBlankPos();
+        int distance = getEntry(PermutationRank.rank(boardKey));
+        Node node = rootNode;
+        while(boardKey != goalKey)
+        {
+            int closer = (distance + MODULUS - 1) % MODULUS;
+            for(int tileToMovePos: Board.getSlidePositions(blankPos))
+            {
+                long childKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+                if(getEntry(PermutationRank.rank(childKey)) == closer)
+                {
+                    boardKey = childKey;
+                    blankPos = tileToMovePos;
+                    break;
+                }
+            }
+            distance = closer;
+            node = new Node(new Board(boardKey), node);
+        }
+        return node;
+    }
+
+    private int getEntry(int rank)
+    {
+        return (distances[rank >>> 1] >>> ((rank & 1) * 4)) & 0xF;
+    }
+
+    private void setEntry(int rank, int value)
+    {
+        int shift = (rank & 1) * 4;
+        distances[rank >>> 1] = (byte) ((distances[rank >>> 1] & ~(0xF << shift))
+                                        | (value << shift));
+    }
+}
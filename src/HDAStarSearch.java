@@ -0,0 +1,399 @@
+/*
+Class: HDAStarSearch
+This class solves a single board with hash distributed A* (HDA*) on several threads.
+Every board is owned by one worker, chosen by hashing its packed key, and only the
+owner keeps it: each worker has its own VisitedTable, NodeArena and BucketQueue, so
+workers never lock. A worker expands the boards it owns and sends each new board to its
+owner. Messages are collected per destination and sent in batches through lock-free
+queues, so the cost of handing a board over is shared by the whole batch.
+
+The first goal board found is not always reached by a shortest path, so it only sets an
+upper bound (the incumbent). Workers keep expanding boards with f below it, and the
+search ends once every worker is idle and no message is in flight. The incumbent is
+then a shortest solution length. Termination is detected by counting the messages sent
+but not processed yet, plus an activity counter raised whenever an idle worker wakes
+up, which tells a worker that checked the others while one of them woke up to check
+again.
+
+An idle worker parks until a batch is added to its inbox (the sender unparks it) or
+for at most IDLEPARKNANOS, after which it checks for termination again. If a worker
+fails, the search is stopped and solve() throws the worker's exception.
+
+A node's parent may belong to another worker, so parents are stored as
+node index * number of workers + worker.
+*/
+
+import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class HDAStarSearch implements Solver
+{
+    private static final int BATCHSIZE = 128;           // Messages per batch
+    private static final int EXPANSIONSPERROUND = 32;   // Boards expanded between sends
+    private static final long IDLEPARKNANOS = 100000;   // Longest park of an idle worker
+
+    private Heuristic       heuristic;              // Shared, read only
+    private int             numWorkers;
+    private Worker[]        workers;
+    private AtomicInteger   incumbent;              // Shortest solution length so far
+    private int             solutionRef;            // Parent reference of its goal node
+    private AtomicLong      inFlight;               // Messages sent, not processed yet
+    private AtomicLong      activity;               // Times an idle worker woke up
+    private volatile boolean done;
+    private volatile Throwable failure;             // First exception of a worker
+    private int             numMoves;
+
+    // CONSTRUCTOR
+    public HDAStarSearch()
+    {
+        this(new ManhattanHeuristic(), Runtime.getRuntime().availableProcessors());
+    }
+
+    // CHAINED CONSTRUCTOR Given heuristic and number of worker threads
+    public HDAStarSearch(Heuristic heuristic, int numWorkers)
+    {
+        this.heuristic = heuristic;
+        this.numWorkers = numWorkers;
+        numMoves = 0;
+    }
+
+    // @return number of unique boards tried by the last solve, over all workers
+    public long getNumMovesTried()
+    {
+        long numMovesTried = 0;
+        if(workers != null)
+            for(Worker worker: workers)
+                numMovesTried += worker.visited.size();
+        return numMovesTried;
+    }
+
+    // @return number of moves of the last solution
+    public int getNumMoves()
+    {
+        return numMoves;
+    }
+
+    // @return solution path, or an empty stack if the board is impossible to solve
+    // @throws RuntimeException or Error thrown by a worker thread
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        Board rootBoard = rootNode.getBoard();
+        numMoves = 0;
+        workers = null;
+        if(!rootBoard.isSolvable())
+            return new Stack<Node>();
+
+        workers = new Worker[numWorkers];
+        for(int x = 0; x < numWorkers; x++)
+            workers[x] = new Worker(x);
+        incumbent = new AtomicInteger(Integer.MAX_VALUE);
+        solutionRef = NodeArena.NOPARENT;
+        inFlight = new AtomicLong();
+        activity = new AtomicLong();
+        done = false;
+        failure = null;
+
+        long rootKey = rootBoard.getBoardKey();
+        workers[ownerOf(rootKey)].receive(rootKey, rootBoard.getBlankPos(), 0,
+                heuristic.estimate(rootKey), NodeArena.NOPARENT, NodeArena.NOMOVE);
+
+        Thread[] threads = new Thread[numWorkers];
+        for(int x = 0; x < numWorkers; x++)
+        {
+            threads[x] = new Thread(workers[x], "HDAStarSearch-" + x);
+            workers[x].thread = threads[x];
+        }
+        for(Thread thread: threads)
+            thread.start();
+        try
+        {
+            for(Thread thread: threads)
+                thread.join();
+        }
+        catch(InterruptedException e)
+        {
+            stop();
+            Thread.currentThread().interrupt();
+            return new Stack<Node>();
+        }
+
+        Throwable cause = failure;
+        if(cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        if(cause instanceof Error)
+            throw (Error) cause;
+        return createSolutionPath();
+    }
+
+    // @return worker owning a board, taken from the high bits of its hash so it does
+    //         not follow the slot order of the workers' visited tables
+    private int ownerOf(long boardKey)
+    {
+        return (int) (((VisitedTable.hash(boardKey) & 0xFFFFFFFFL) * numWorkers) >>> 32);
+    }
+
+    // Keeps the goal node of a shorter solution
+    private synchronized void recordSolution(int g, int nodeRef)
+    {
+        if(g < incumbent.get())
+        {
+            solutionRef = nodeRef;
+            incumbent.set(g);
+        }
+    }
+
+    // Run by an idle worker: ends the search if no worker has work left
+    private void checkTermination()
+    {
+        long activityBefore = activity.get();
+        for(Worker worker: workers)
+        {
+            if(!worker.idle)
+                return;
+        }
+        if(inFlight.get() == 0 && activity.get() == activityBefore)
+            stop();
+    }
+
+    // Ends the search and wakes up the parked workers so they see it
+    private void stop()
+    {
+        done = true;
+        for(Worker worker: workers)
+            LockSupport.unpark(worker.thread);
+    }
+
+    // Keeps the first exception of a worker and stops the others
+    private synchronized void fail(Throwable cause)
+    {
+        if(failure == null)
+            failure = cause;
+        stop();
+    }
+
+    // Follows the parent references from the goal node back to the root
+    // @return solution path in the shape of SearchTree.createSolutionPath
+    private Stack<Node> createSolutionPath()
+    {
+        Stack<Node> solutionPathStack = new Stack<Node>();
+        if(solutionRef == NodeArena.NOPARENT)
+            return solutionPathStack;
+
+        Stack<Long> keys = new Stack<Long>();         // Goal board first
+        for(int ref = solutionRef; ref != NodeArena.NOPARENT; )
+        {
+            NodeArena arena = workers[ref % numWorkers].arena;
+            keys.push(arena.getBoardKey(ref / numWorkers));
+            ref = arena.getParent(ref / numWorkers);
+        }
+
+        // Link the boards from the root down, then push them from the last board up
+        Node[] path = new Node[keys.size()];
+        path[0] = new Node(new Board(keys.pop()));
+        for(int d = 1; d < path.length; d++)
+            path[d] = new Node(new Board(keys.pop()), path[d - 1]);
+        for(int d = path.length - 1; d > 0; d--)
+            solutionPathStack.push(path[d]);
+        numMoves = path.length - 1;
+        return solutionPathStack;
+    }
+
+    // One search thread and the boards it owns. A message is two longs: the board, and
+    // parent reference << 32 | g << 20 | h << 8 | move << 5 | blank position. A batch
+    // holds its number of messages in its first element.
+    private class Worker implements Runnable
+    {
+        private int                             id;
+        private VisitedTable                    visited;
+        private NodeArena                       arena;
+        private BucketQueue                     openList;
+        private Successors                      nextMoves;
+        private ConcurrentLinkedQueue<long[]>   inbox;
+        private long[][]                        outBatches;     // One per destination
+        private volatile boolean                idle;
+        private volatile Thread                 thread;         // Running this worker
+
+        // CONSTRUCTOR
+        Worker(int id)
+        {
+            this.id = id;
+            visited = new VisitedTable(Constants.HMAPSIZE / numWorkers);
+            arena = new NodeArena();
+            openList = new BucketQueue(true);
+            nextMoves = new Successors();
+            inbox = new ConcurrentLinkedQueue<long[]>();
+            outBatches = new long[numWorkers][];
+            idle = false;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                search();
+            }
+            catch(Throwable e)
+            {
+                fail(e);
+            }
+        }
+
+        private void search()
+        {
+            while(!done)
+            {
+                long[] batch = inbox.poll();
+                if(batch != null)
+                {
+                    // Wake up before the messages stop counting as in flight
+                    if(idle)
+                    {
+                        idle = false;
+                        activity.incrementAndGet();
+                    }
+                    int count = (int) batch[0];
+                    for(int x = 0; x < count; x++)
+                        receive(batch[2 * x + 1], batch[2 * x + 2]);
+                    inFlight.addAndGet(-count);
+                    continue;
+                }
+
+                if(hasWork())
+                {
+                    for(int x = 0; x < EXPANSIONSPERROUND && hasWork(); x++)
+                        expand();
+                    sendAll();
+                }
+                else
+                {
+                    sendAll();
+                    idle = true;
+                    checkTermination();
+                    if(!done && inbox.isEmpty())
+                        LockSupport.parkNanos(this, IDLEPARKNANOS);
+                }
+            }
+        }
+
+        // @return true if a waiting board may lead to a shorter solution than the
+        //         incumbent; otherwise drops all waiting boards
+        private boolean hasWork()
+        {
+            if(openList.isEmpty())
+                return false;
+            if(openList.peekF() < incumbent.get())
+                return true;
+            openList.clear();
+            return false;
+        }
+
+        // Expands the next board of the open list
+        private void expand()
+        {
+            int f = openList.peekF();
+            int node = openList.poll();
+            int g = arena.getG(node);
+            int h = arena.getH(node);
+
+            // Skip queue entries left behind when a shorter path to the board was found
+            if(g + h != f)
+                return;
+            int nodeRef = node * numWorkers + id;
+            if(h == 0)
+            {
+                recordSolution(g, nodeRef);
+                return;
+            }
+
+            int numNextMoves = Board.generateSuccessors(arena.getBoardKey(node),
+                    arena.getBlankPos(node), h, heuristic, nextMoves);
+            for(int x = 0; x < numNextMoves; x++)
+            {
+                long childKey = nextMoves.getBoardKey(x);
+                int owner = ownerOf(childKey);
+                if(owner == id)
+                    receive(childKey, nextMoves.getBlankPos(x), g + 1,
+                            nextMoves.getHeuristicValue(x), nodeRef,
+                            nextMoves.getMove(x));
+                else
+                    send(owner, childKey, ((long) nodeRef << 32)
+                            | ((long) (g + 1) << 20)
+                            | (nextMoves.getHeuristicValue(x) << 8)
+                            | (nextMoves.getMove(x) << 5)
+                            | nextMoves.getBlankPos(x));
+            }
+        }
+
+        private void receive(long boardKey, long message)
+        {
+            receive(boardKey, (int) (message & 0x1F), (int) ((message >>> 20) & 0xFFF),
+                    (int) ((message >>> 8) & 0xFFF), (int) (message >>> 32),
+                    (int) ((message >>> 5) & 0x7));
+        }
+
+        // Adds a board reached by this or another worker, unless it was already
+        // reached by a path at least as short or cannot beat the incumbent
+        void receive(long boardKey, int blankPos, int g, int h, int parentRef, int move)
+        {
+            if(g + h >= incumbent.get())
+                return;
+
+            int slot = visited.find(boardKey);
+            if(slot < 0)
+            {
+                int node = arena.add(parentRef, move, g, h, boardKey, blankPos);
+                visited.insert(boardKey, node, g);
+                openList.add(node, g + h, g);
+            }
+            else if(g < visited.getG(slot))
+            {
+                int node = visited.getNodeIndex(slot);
+                arena.setParent(node, parentRef, move, g);
+                visited.update(slot, node, g);
+                openList.add(node, g + h, g);
+            }
+        }
+
+        private void send(int owner, long boardKey, long message)
+        {
+            long[] batch = outBatches[owner];
+            if(batch == null)
+            {
+                batch = new long[2 * BATCHSIZE + 1];
+                outBatches[owner] = batch;
+            }
+            int count = (int) batch[0];
+            batch[2 * count + 1] = boardKey;
+            batch[2 * count + 2] = message;
+            batch[0] = count + 1;
+            if(count + 1 == BATCHSIZE)
+                sendBatch(owner);
+        }
+
+        // Sends every partly filled batch
+        private void sendAll()
+        {
+            for(int owner = 0; owner < numWorkers; owner++)
+            {
+                if(outBatches[owner] != null)
+                    sendBatch(owner);
+            }
+        }
+
+        // Hands a batch over to its owner; it counts as in flight until processed
+        private void sendBatch(int owner)
+        {
+            long[] batch = outBatches[owner];
+            outBatches[owner] = null;
+            inFlight.addAndGet(batch[0]);
+            workers[owner].inbox.add(batch);
+            if(workers[owner].idle)
+                LockSupport.unpark(workers[owner].thread);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/*
+Interface: Heuristic
+An estimate of the number of moves from a packed board (see Board) to the goal board,
+used by the solvers to decide which boards to check first. To keep A* and IDA*
+solutions shortest, an estimate must never be more than the real number of moves, and
+it must be 0 only for the goal board.
+
+Successors are scored with update(), which gets the parent's value and the single tile
+that moved, so implementations can adjust the value from lookup tables instead of
+scoring the whole board again.
+*/
+
+public interface Heuristic
+{
+    // @return estimated number of moves from the board to the goal
+    int estimate(long boardKey);
+
+    // @return estimate of a board reached by one move
+    // @param heuristicValue: estimate of the board before the move
+    // @param boardKey: board after the move
+    // @param tile: tile that moved, from position from to position to
+    default int update(int heuristicValue, long boardKey, int tile, int from, int to)
+    {
+        return estimate(boardKey);
+    }
+}
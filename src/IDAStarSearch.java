@@ -0,0 +1,235 @@
+/*
+Class: IDAStarSearch
+This class solves a board with iterative deepening A* (IDA*). It runs depth first
+searches limited by f = g + h, raising the limit to the lowest f that exceeded it until
+a solution is found, so the solution is always a shortest one. No visited table is kept:
+memory use is proportional to the solution length rather than to the number of boards
+tried. Counters and timings of the last solve are kept in a SearchMetrics.
+
+The search is not recursive. The board, blank position and heuristic value of every
+depth are kept on explicit stacks next to the successors still to be tried, and moving
+the blank back to where it just came from is never tried.
+*/
+
+import java.util.Stack;
+
+public class IDAStarSearch implements Solver
+{
+    private static final int FOUND = -1;
+    private static final int NOTFOUND = -2;
+    private static final int STOPPED = -3;
+
+    private Heuristic       heuristic;
+    private int             maxDepth;           // Longest solution searched for
+    private long[]          keyStack;           // Board at each depth
+    private int[]           blankStack;         // Blank position at each depth
+    private Successors[]    successorStack;     // Next moves at each depth
+    private int[]           childStack;         // Next successor to try at each depth
+    private long            numMovesTried;
+    private int             numMoves;
+    private int             minHeuristicValSoFar;
+    private SearchProgressListener progressListener;
+    private SearchMetrics   metrics;            // Of the last solve
+    private long            setupNanos;         // Not yet reported by a solve
+
+    // CONSTRUCTOR
+    public IDAStarSearch()
+    {
+        this(new ManhattanHeuristic(), Constants.IDASTARMAXDEPTH);
+    }
+
+    // CHAINED CONSTRUCTOR Given heuristic
+    public IDAStarSearch(Heuristic heuristic)
+    {
+        this(heuristic, Constants.IDASTARMAXDEPTH);
+    }
+
+    // CHAINED CONSTRUCTOR Given heuristic and longest solution to search for
+    public IDAStarSearch(Heuristic heuristic, int maxDepth)
+    {
+        long start = System.nanoTime();
+        this.heuristic = heuristic;
+        this.maxDepth = maxDepth;
+        keyStack = new long[maxDepth + 1];
+        blankStack = new int[maxDepth + 1];
+        childStack = new int[maxDepth + 1];
+        successorStack = new Successors[maxDepth + 1];
+        for(int x = 0; x <= maxDepth; x++)
+            successorStack[x] = new Successors();
+        numMovesTried = 0;
+        numMoves = 0;
+        progressListener = null;
+        metrics = new SearchMetrics("IDASTAR");
+        setupNanos = System.nanoTime() - start;
+    }
+
+    // Sets a listener told about the progress of the search, or null for none
+    public void setProgressListener(SearchProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    public Heuristic getHeuristic()
+    {
+        return heuristic;
+    }
+
+    // @return number of boards generated by the last solve
+    public long getNumMovesTried()
+    {
+        return numMovesTried;
+    }
+
+    // @return number of moves of the last solution
+    public int getNumMoves()
+    {
+        return numMoves;
+    }
+
+    // @return counters and timings of the last solve
+    public SearchMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    // @return solution path, or an empty stack if the board is impossible to solve, no
+    //         solution of at most maxDepth moves exists or the thread was interrupted
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        metrics = new SearchMetrics("IDASTAR");
+        metrics.setupNanos = setupNanos;
+        setupNanos = 0;
+        long start = System.nanoTime();
+        Stack<Node> solutionPathStack = search(rootNode);
+        metrics.searchNanos = System.nanoTime() - start - metrics.pathNanos;
+        if(numMoves > 0 || rootNode.getBoard().getHeuristicValue() == 0)
+            metrics.solutionLength = numMoves;
+
+        // The stacks: a board, blank position, next child and Successors per depth
+        metrics.peakMemoryBytes = (maxDepth + 1)
+                * (8L + 4 + 4 + Constants.NUMMOVES * (8 + 4 + 4 + 4));
+        event.report(rootNode.getBoard().getBoardKey(), metrics);
+        return solutionPathStack;
+    }
+
+    // Runs the iterations of IDA*
+    // @return the same as solve
+    private Stack<Node> search(Node rootNode)
+    {
+        Board rootBoard = rootNode.getBoard();
+        keyStack[0] = rootBoard.getBoardKey();
+        blankStack[0] = rootBoard.getBlankPos();
+        numMovesTried = 0;
+        numMoves = 0;
+        if(!rootBoard.isSolvable())
+            return new Stack<Node>();
+
+        int rootH = heuristic.estimate(rootBoard.getBoardKey());
+        minHeuristicValSoFar = rootH;
+        int bound = rootH;
+        while(bound <= maxDepth)
+        {
+            bound = depthFirstSearch(rootH, bound);
+            if(bound == FOUND)
+            {
+                long start = System.nanoTime();
+                Stack<Node> solutionPathStack = createSolutionPath(numMoves);
+                metrics.pathNanos = System.nanoTime() - start;
+                return solutionPathStack;
+            }
+            if(bound == NOTFOUND || bound == STOPPED)
+                break;
+        }
+        return new Stack<Node>();
+    }
+
+    // Depth first search of all boards with f = g + h at most bound. If a solution is
+    // found, its boards are left on the key stack and numMoves is its length.
+    // @return FOUND, the lowest f above bound (the next bound), NOTFOUND if no board
+    //         exceeded the bound, or STOPPED if the thread was interrupted
+    private int depthFirstSearch(int rootHeuristicValue, int bound)
+    {
+        if(rootHeuristicValue == 0)
+            return FOUND;
+
+        int nextBound = Integer.MAX_VALUE;
+        int depth = 0;
+        metrics.nodesGenerated += Board.generateSuccessors(keyStack[0], blankStack[0],
+                rootHeuristicValue, heuristic, successorStack[0]);
+        metrics.nodesExpanded++;
+        childStack[0] = 0;
+
+        while(depth >= 0)
+        {
+            Successors successors = successorStack[depth];
+            if(childStack[depth] == successors.size())
+            {
+                depth--;            // All moves tried, backtrack
+                continue;
+            }
+
+            int x = childStack[depth]++;
+            int blankPos = successors.getBlankPos(x);
+            if(depth > 0 && blankPos == blankStack[depth - 1])
+            {
+                metrics.duplicatesPruned++;
+                continue;           // Undoes the previous move
+            }
+
+            numMovesTried++;
+            int h = successors.getHeuristicValue(x);
+            if(h < minHeuristicValSoFar)
+                minHeuristicValSoFar = h;
+            if((numMovesTried & (Constants.PROGRESSINTERVAL - 1)) == 0)
+            {
+                if(progressListener != null)
+                    progressListener.progress(numMovesTried, depth, minHeuristicValSoFar);
+                if(Thread.currentThread().isInterrupted())
+                    return STOPPED;
+            }
+            int f = depth + 1 + h;
+            if(f > bound)
+            {
+                if(f < nextBound)
+                    nextBound = f;
+                continue;
+            }
+
+            depth++;
+            if(depth > metrics.peakOpenListSize)
+                metrics.peakOpenListSize = depth;
+            keyStack[depth] = successors.getBoardKey(x);
+            blankStack[depth] = blankPos;
+            if(h == 0)
+            {
+                numMoves = depth;
+                return FOUND;
+            }
+
+            metrics.nodesGenerated += Board.generateSuccessors(keyStack[depth], blankPos,
+                    h, heuristic, successorStack[depth]);
+            metrics.nodesExpanded++;
+            childStack[depth] = 0;
+        }
+
+        return (nextBound == Integer.MAX_VALUE)? NOTFOUND: nextBound;
+    }
+
+    // @return solution path of the boards on the key stack
+    private Stack<Node> createSolutionPath(int depth)
+    {
+        Stack<Node> solutionPathStack = new Stack<Node>();
+
+        // Link the boards from the root down, then push them from the last board up
+        Node[] path = new Node[depth + 1];
+        path[0] = new Node(new Board(keyStack[0]));
+        for(int d = 1; d <= depth; d++)
+            path[d] = new Node(new Board(keyStack[d]), path[d - 1]);
+        for(int d = depth; d > 0; d--)
+            solutionPathStack.push(path[d]);
+        return solutionPathStack;
+    }
+}
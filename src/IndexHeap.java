@@ -0,0 +1,106 @@
+/*
+Class: IndexHeap
+This class is the priority queue (minheap) of the SearchTree. It holds NodeArena indexes
+ordered by an integer priority (the heuristic value). Each entry is packed into a single
+long (priority in the high 32 bits, node index in the low 32 bits), so the heap is one
+primitive array and adding or polling a node creates no objects. Entries of equal
+priority are polled in no particular order.
+*/
+
+import java.util.Arrays;
+
+public class IndexHeap
+{
+    private long[]  heap;
+    private int     size;
+    private int     peakSize;       // Most entries held at once
+
+    // CONSTRUCTOR
+    public IndexHeap(int initialCapacity)
+    {
+        heap = new long[Math.max(16, initialCapacity)];
+        size = 0;
+        peakSize = 0;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // @return most entries held at once since the heap was created
+    public int getPeakSize()
+    {
+        return peakSize;
+    }
+
+    // @return approximate number of bytes held by the heap
+    public long memoryBytes()
+    {
+        return 8L * heap.length;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    // Adds a node index with the given (non-negative) priority
+    public void add(int nodeIndex, int priority)
+    {
+        if(size == heap.length)
+            heap = Arrays.copyOf(heap, size * 2);
+
+        long entry = ((long) priority << 32) | (nodeIndex & 0xFFFFFFFFL);
+
+        // Sift up
+        int pos = size++;
+        if(size > peakSize)
+            peakSize = size;
+        while(pos > 0)
+        {
+            int parent = (pos - 1) >>> 1;
+            if(heap[parent] <= entry)
+                break;
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = entry;
+    }
+
+    // @return priority of the next node to be polled
+    public int peekPriority()
+    {
+        return (int) (heap[0] >>> 32);
+    }
+
+    // Removes the node index with the lowest priority
+    // @return node index
+    public int poll()
+    {
+        long top = heap[0];
+        long entry = heap[--size];
+
+        // Sift down
+        int pos = 0;
+        int half = size >>> 1;
+        while(pos < half)
+        {
+            int child = 2 * pos + 1;
+            if(child + 1 < size && heap[child + 1] < heap[child])
+                child++;
+            if(entry <= heap[child])
+                break;
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = entry;
+
+        return (int) top;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+Class: LinearConflictHeuristic
+Manhattan distance plus linear conflicts. Two tiles are in linear conflict when both are
+in their goal row (or column) but in the wrong order: one of them has to leave the line
+and come back, which costs 2 moves the city-block distance does not count. For every
+line, the minimum number of tiles that must leave it (line length minus the longest
+run already in goal order) is precomputed for every possible line content, so a board
+is scored with one lookup per row and column.
+*/
+
+public class LinearConflictHeuristic extends ManhattanHeuristic
+{
+    private byte[][] rowConflicts;      // rowConflicts[row][packed row]
+    private byte[][] colConflicts;      // colConflicts[col][packed column]
+
+    // CONSTRUCTOR
+    public LinearConflictHeuristic()
+    {
+        super();
+        int lineSize = Constants.numCols;
+        int numLineBoards = 1 << (lineSize * Board.BITSPERCELL);
+
+        rowConflicts = new byte[Constants.numRows][numLineBoards];
+        colConflicts = new byte[Constants.numCols][numLineBoards];
+        int[] goalOrder = new int[lineSize];
+        for(int line = 0; line < lineSize; line++)
+        {
+            for(int lineBoard = 0; lineBoard < numLineBoards; lineBoard++)
+            {
+                rowConflicts[line][lineBoard] = (byte) lineConflict(lineBoard, line,
+                        Constants.tileGoalRow, Constants.tileGoalCol, goalOrder);
+                colConflicts[line][lineBoard] = (byte) lineConflict(lineBoard, line,
+                        Constants.tileGoalCol, Constants.tileGoalRow, goalOrder);
+            }
+        }
+    }
+
+    @Override
+    public int estimate(long boardKey)
+    {
+        int hvalue = super.estimate(boardKey);
+        for(int line = 0; line < Constants.numRows; line++)
+            hvalue += rowConflicts[line][packRow(boardKey, line)];
+        for(int line = 0; line < Constants.numCols; line++)
+            hvalue += colConflicts[line][packCol(boardKey, line)];
+        return hvalue;
+    }
+
+    @Override
+    public int update(int heuristicValue, long boardKey, int tile, int from, int to)
+    {
+        int hvalue = super.update(heuristicValue, boardKey, tile, from, to);
+        long parentKey = Board.slideTile(boardKey, from, to);
+
+        // Only the lines the tile left and entered can change
+        int fromRow = Constants.arrToBoardRowMapping[from];
+        int toRow = Constants.arrToBoardRowMapping[to];
+        int fromCol = Constants.arrToBoardColMapping[from];
+        int toCol = Constants.arrToBoardColMapping[to];
+
+        hvalue += rowConflicts[toRow][packRow(boardKey, toRow)]
+                - rowConflicts[toRow][packRow(parentKey, toRow)];
+        if(fromRow != toRow)
+            hvalue += rowConflicts[fromRow][packRow(boardKey, fromRow)]
+                    - rowConflicts[fromRow][packRow(parentKey, fromRow)];
+        hvalue += colConflicts[toCol][packCol(boardKey, toCol)]
+                - colConflicts[toCol][packCol(parentKey, toCol)];
+        if(fromCol != toCol)
+            hvalue += colConflicts[fromCol][packCol(boardKey, fromCol)]
+                    - colConflicts[fromCol][packCol(parentKey, fromCol)];
+        return hvalue;
+    }
+
+    // @return the tiles of a row packed like a board (4 bits per cell)
+    private static int packRow(long boardKey, int row)
+    {
+        int lineBits = Constants.numCols * Board.BITSPERCELL;
+        return (int) ((boardKey >>> (row * lineBits)) & ((1L << lineBits) - 1));
+    }
+
+    // @return the tiles of a column packed like a board (4 bits per cell)
+    private static int packCol(long boardKey, int col)
+    {
+        int lineBoard = 0;
+        for(int row = 0; row < Constants.numRows; row++)
+            lineBoard |= Board.tileAt(boardKey, row * Constants.numCols + col)
+                         << (row * Board.BITSPERCELL);
+        return lineBoard;
+    }
+
+    // @return 2 moves for every tile that must leave the line so the tiles in their goal
+    //         line are in goal order
+    // @param goalLine: goal row (or column) of each tile
+    // @param goalPlace: goal column (or row) of each tile, the order inside the line
+    private static int lineConflict(int lineBoard, int line, int[] goalLine,
+                                    int[] goalPlace, int[] goalOrder)
+    {
+        // Goal places of the tiles that belong in this line, in board order
+        int count = 0;
+        for(int x = 0; x < goalOrder.length; x++)
+        {
+            int tile = (lineBoard >>> (x * Board.BITSPERCELL)) & (int) Board.CELLMASK;
+            if(tile != 0 && tile < Constants.BOARDSIZE && goalLine[tile] == line)
+                goalOrder[count++] = goalPlace[tile];
+        }
+
+        // Longest increasing subsequence stays, every other tile must leave the line
+        int longest = 0;
+        int[] runLength = new int[count];
+        for(int x = 0; x < count; x++)
+        {
+            runLength[x] = 1;
+            for(int y = 0; y < x; y++)
+                if(goalOrder[y] < goalOrder[x] && runLength[y] + 1 > runLength[x])
+                    runLength[x] = runLength[y] + 1;
+            longest = Math.max(longest, runLength[x]);
+        }
+        return 2 * (count - longest);
+    }
+}
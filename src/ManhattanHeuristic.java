@@ -0,0 +1,65 @@
+/*
+Class: ManhattanHeuristic
+Sum of the "city-block" distances of each tile from its goal position (the blank spot
+is not counted). The distance of every tile from every position, and the change of
+distance for every (tile, from, to) move, are precomputed, so estimating a board is one
+lookup per tile and updating it after a move is a single lookup.
+
+The distances may also be measured to any other board instead of the goal board, i.e.
+to the start board for the backward half of a bidirectional search.
+*/
+
+public class ManhattanHeuristic implements Heuristic
+{
+    private int[]   distance;       // distance[tile * BOARDSIZE + pos]
+    private byte[]  delta;          // delta[(tile * BOARDSIZE + from) * BOARDSIZE + to]
+
+    // CONSTRUCTOR
+    public ManhattanHeuristic()
+    {
+        this(Board.goalBoardKey());
+    }
+
+    // CHAINED CONSTRUCTOR Given packed board to measure the distances to
+    public ManhattanHeuristic(long targetKey)
+    {
+        int size = Constants.BOARDSIZE;
+        distance = new int[size * size];
+        delta = new byte[size * size * size];
+
+        for(int targetPos = 0; targetPos < size; targetPos++)
+        {
+            int tile = Board.tileAt(targetKey, targetPos);
+            if(tile == 0)           // The blank spot is not a tile
+                continue;
+            for(int pos = 0; pos < size; pos++)
+                distance[tile * size + pos] =
+                        Math.abs(Constants.arrToBoardRowMapping[pos]
+                                 - Constants.arrToBoardRowMapping[targetPos])
+                        + Math.abs(Constants.arrToBoardColMapping[pos]
+                                   - Constants.arrToBoardColMapping[targetPos]);
+        }
+
+        for(int tile = 1; tile < size; tile++)
+            for(int from = 0; from < size; from++)
+                for(int to = 0; to < size; to++)
+                    delta[(tile * size + from) * size + to] = (byte)
+                            (distance[tile * size + to] - distance[tile * size + from]);
+    }
+
+    @Override
+    public int estimate(long boardKey)
+    {
+        int hvalue = 0;
+        for(int pos = 0; pos < Constants.BOARDSIZE; pos++)
+            hvalue += distance[Board.tileAt(boardKey, pos) * Constants.BOARDSIZE + pos];
+        return hvalue;
+    }
+
+    @Override
+    public int update(int heuristicValue, long boardKey, int tile, int from, int to)
+    {
+        return heuristicValue + delta[(tile * Constants.BOARDSIZE + from)
+                                      * Constants.BOARDSIZE + to];
+    }
+}
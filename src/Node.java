@@ -1,28 +1,21 @@
 /*
 Class: Node
-This class represents nodes of the SearchTree class. It is a container for the puzzle
-board and pointers to potential next move board nodes (up, down, left, right). It
-implements comparable based on heuristic value for priority queue in SearchTree class.
+This class represents a board on a path found by the SearchTree class. It is a thin
+view for the GUI and console: a container for the puzzle board and a pointer to the
+board it was reached from (parent). The search itself keeps its nodes in a NodeArena.
+It implements comparable based on heuristic value.
 */
 
 public class Node implements Comparable<Node>
 {
     private Board   board;
     private Node    parent;
-    private Node    upChild;
-    private Node    downChild;
-    private Node    leftChild;
-    private Node    rightChild;
 
     // Constructor
     public Node()
     {
         board = new Board();
         parent = null;
-        upChild = null;
-        downChild = null;
-        leftChild = null;
-        rightChild = null;
     }
 
     // Chained Constructor: Board from user input
@@ -30,10 +23,20 @@ public class Node implements Comparable<Node>
     {
         board = new Board(boardString);
         parent = null;
-        upChild = null;
-        downChild = null;
-        leftChild = null;
-        rightChild = null;
+    }
+
+    // Chained Constructor: Board already built by the search
+    public Node(Board board)
+    {
+        this.board = board;
+        parent = null;
+    }
+
+    // Chained Constructor: Board on a solution path
+    public Node(Board board, Node parent)
+    {
+        this.board = board;
+        this.parent = parent;
     }
 
     // Compare function for Priority Queue/MinHeap on Heuristic Value
@@ -49,54 +52,15 @@ public class Node implements Comparable<Node>
         return board;
     }
 
-    public Node getParent()
+    // @return packed board, the state key used by SearchTree
+    public long getBoardKey()
     {
-        return parent;
+        return board.getBoardKey();
     }
 
-
-    public Node getUpChild()
-    {
-        return upChild;
-    }
-
-    public void setUpChild(Node upChild)
-    {
-        this.upChild = upChild;
-        upChild.parent = this;
-    }
-
-    public Node getDownChild()
-    {
-        return downChild;
-    }
-
-    public void setDownChild(Node downChild)
-    {
-        this.downChild = downChild;
-        downChild.parent = this;
-    }
-
-    public Node getLeftChild()
-    {
-        return leftChild;
-    }
-
-    public void setLeftChild(Node leftChild)
-    {
-        this.leftChild = leftChild;
-        leftChild.parent = this;
-    }
-
-    public Node getRightChild()
-    {
-        return rightChild;
-    }
-
-    public void setRightChild(Node rightChild)
+    public Node getParent()
     {
-        this.rightChild = rightChild;
-        rightChild.parent = this;
+        return parent;
     }
 
     // @return heuristic value of board
@@ -106,4 +70,4 @@ public class Node implements Comparable<Node>
     }
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+/*
+Class: NodeArena
+This class stores the nodes of the SearchTree. Instead of one Node object (with its own
+Board) per visited board, every node is an index into parallel primitive arrays holding
+its parent index, the move that led to it, g (moves from the root), h (heuristic value),
+the packed board and the position of the blank tile.
+
+The arrays grow in fixed size chunks, so adding a node never copies the existing nodes
+and a search creates almost no garbage. Node objects are only built as a thin view of
+the solution path for the GUI and console.
+*/
+
+import java.util.Arrays;
+
+public class NodeArena
+{
+    public static final int NOPARENT = -1;
+    public static final int NOMOVE = -1;
+
+    private static final int CHUNKSHIFT = 14;                  // 16384 nodes per chunk
+    private static final int CHUNKSIZE = 1 << CHUNKSHIFT;
+    private static final int CHUNKMASK = CHUNKSIZE - 1;
+
+    private int[][]     parents;
+    private byte[][]    moves;
+    private int[][]     gValues;
+    private int[][]     hValues;
+    private long[][]    boardKeys;
+    private byte[][]    blankPositions;
+    private int         numChunks;
+    private int         size;
+
+    // CONSTRUCTOR
+    public NodeArena()
+    {
+        parents = new int[1][];
+        moves = new byte[1][];
+        gValues = new int[1][];
+        hValues = new int[1][];
+        boardKeys = new long[1][];
+        blankPositions = new byte[1][];
+        numChunks = 0;
+        size = 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    // @return approximate number of bytes held by the arena
+    public long memoryBytes()
+    {
+        return (long) numChunks * CHUNKSIZE * (4 + 1 + 4 + 4 + 8 + 1);
+    }
+
+    // Adds a node to the arena
+    // @return index of the new node
+    public int add(int parent, int move, int g, int h, long boardKey, int blankPos)
+    {
+        int index = size;
+        int chunk = index >>> CHUNKSHIFT;
+        if(chunk == numChunks)
+            addChunk();
+
+        int offset = index & CHUNKMASK;
+        parents[chunk][offset] = parent;
+        moves[chunk][offset] = (byte) move;
+        gValues[chunk][offset] = g;
+        hValues[chunk][offset] = h;
+        boardKeys[chunk][offset] = boardKey;
+        blankPositions[chunk][offset] = (byte) blankPos;
+        size++;
+        return index;
+    }
+
+    public int getParent(int index)
+    {
+        return parents[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    public int getMove(int index)
+    {
+        return moves[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    public int getG(int index)
+    {
+        return gValues[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    public int getH(int index)
+    {
+        return hValues[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    public long getBoardKey(int index)
+    {
+        return boardKeys[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    public int getBlankPos(int index)
+    {
+        return blankPositions[index >>> CHUNKSHIFT][index & CHUNKMASK];
+    }
+
+    // Re-parents a node, i.e. when its board is reached by a shorter path
+    public void setParent(int index, int parent, int move, int g)
+    {
+        parents[index >>> CHUNKSHIFT][index & CHUNKMASK] = parent;
+        moves[index >>> CHUNKSHIFT][index & CHUNKMASK] = (byte) move;
+        gValues[index >>> CHUNKSHIFT][index & CHUNKMASK] = g;
+    }
+
+    // Forgets all nodes but keeps the allocated chunks for the next search
+    public void clear()
+    {
+        size = 0;
+    }
+
+    // Builds the Node view of a node and all its ancestors
+    // @return node of the given index, linked to its parent nodes up to the root
+    public Node toNode(int index)
+    {
+        // Collect the path from the root down to index, then link the views in order
+        int depth = 0;
+        for(int x = index; x != NOPARENT; x = getParent(x))
+            depth++;
+
+        int[] path = new int[depth];
+        for(int x = index, d = depth - 1; x != NOPARENT; x = getParent(x), d--)
+            path[d] = x;
+
+        Node node = null;
+        for(int d = 0; d < depth; d++)
+            node = new Node(new Board(getBoardKey(path[d])), node);
+        return node;
+    }
+
+    private void addChunk()
+    {
+        if(numChunks == parents.length)
+        {
+            int newLength = numChunks * 2;
+            parents = Arrays.copyOf(parents, newLength);
+            moves = Arrays.copyOf(moves, newLength);
+            gValues = Arrays.copyOf(gValues, newLength);
+            hValues = Arrays.copyOf(hValues, newLength);
+            boardKeys = Arrays.copyOf(boardKeys, newLength);
+            blankPositions = Arrays.copyOf(blankPositions, newLength);
+        }
+
+        parents[numChunks] = new int[CHUNKSIZE];
+        moves[numChunks] = new byte[CHUNKSIZE];
+        gValues[numChunks] = new int[CHUNKSIZE];
+        hValues[numChunks] = new int[CHUNKSIZE];
+        boardKeys[numChunks] = new long[CHUNKSIZE];
+        blankPositions[numChunks] = new byte[CHUNKSIZE];
+        numChunks++;
+    }
+}
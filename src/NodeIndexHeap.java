@@ -0,0 +1,142 @@
+/*
+Class: NodeIndexHeap
+Priority queue of node indexes 0 to capacity - 1 ordered by a long key, for a search
+that must change the key of a node already queued or remove it (SMAStarSearch). Like
+IndexHeap it is built on primitive arrays, but they are all allocated up front for the
+capacity, and the heap position of every node is kept, so a node is found, re-keyed or
+removed in O(log n) and no operation creates objects or grows the heap. A node is in
+the heap at most once. A min heap polls the lowest key first, a max heap the highest.
+*/
+
+import java.util.Arrays;
+
+public class NodeIndexHeap
+{
+    public static final int BYTESPERNODE = 16;      // keys, nodes and positions
+
+    private long[]  keys;           // Key of each heap entry
+    private int[]   nodes;          // Node of each heap entry
+    private int[]   positions;      // Heap entry of each node, -1 if not in the heap
+    private int     size;
+    private boolean isMaxHeap;
+
+    // CONSTRUCTOR
+    public NodeIndexHeap(int capacity, boolean isMaxHeap)
+    {
+        keys = new long[capacity];
+        nodes = new int[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+        size = 0;
+        this.isMaxHeap = isMaxHeap;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean contains(int node)
+    {
+        return positions[node] >= 0;
+    }
+
+    public void clear()
+    {
+        for(int x = 0; x < size; x++)
+            positions[nodes[x]] = -1;
+        size = 0;
+    }
+
+    // Adds a node, or changes its key if it is in the heap already
+    public void add(int node, long key)
+    {
+        int pos = positions[node];
+        if(pos < 0)
+        {
+            pos = size++;
+            nodes[pos] = node;
+            positions[node] = pos;
+        }
+        keys[pos] = key;
+        siftDown(siftUp(pos));
+    }
+
+    // @return node with the lowest (highest for a max heap) key; the heap must not be
+    //         empty
+    public int peek()
+    {
+        return nodes[0];
+    }
+
+    // @return true if the node was in the heap
+    public boolean remove(int node)
+    {
+        int pos = positions[node];
+        if(pos < 0)
+            return false;
+        positions[node] = -1;
+        if(pos == --size)
+            return true;
+
+        // Move the last entry into the hole and restore its order
+        keys[pos] = keys[size];
+        nodes[pos] = nodes[size];
+        positions[nodes[pos]] = pos;
+        siftDown(siftUp(pos));
+        return true;
+    }
+
+    // @return true if the first key is polled before the second
+    private boolean before(long first, long second)
+    {
+        return isMaxHeap? first > second: first < second;
+    }
+
+    // @return heap position where the entry at pos ends up
+    private int siftUp(int pos)
+    {
+        while(pos > 0)
+        {
+            int parent = (pos - 1) >>> 1;
+            if(!before(keys[pos], keys[parent]))
+                break;
+            swap(pos, parent);
+            pos = parent;
+        }
+        return pos;
+    }
+
+    private void siftDown(int pos)
+    {
+        while(true)
+        {
+            int child = 2 * pos + 1;
+            if(child >= size)
+                break;
+            if(child + 1 < size && before(keys[child + 1], keys[child]))
+                child++;
+            if(!before(keys[child], keys[pos]))
+                break;
+            swap(pos, child);
+            pos = child;
+        }
+    }
+
+    private void swap(int first, int second)
+    {
+        long key = keys[first];
+        keys[first] = keys[second];
+        keys[second] = key;
+        int node = nodes[first];
+        nodes[first] = nodes[second];
+        nodes[second] = node;
+        positions[nodes[first]] = first;
+        positions[nodes[second]] = second;
+    }
+}
@@ -1,21 +1,24 @@
 /*
 Class: PanelFrame
-This class is the front end of the 8 tiles puzzle game. This class is responsible for
-displaying the GUI and calling methods from the backend to run the game.
+This class is the front end of the 8 tiles puzzle game (or 3 or 15 tiles, following the
+active PuzzleSpec). This class is responsible for displaying the GUI and calling
+methods from the backend to run the game.
 */
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.Stack;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 
 public class PanelFrame extends JFrame
 {
     private JPanel buttonJPanel;
     private JPanel controlButtonJPanel; // panel to hold controlButtons
-    private JButton buttons[];          // array of 9 buttons
+    private JButton buttons[];          // array of one button per board position
     private JButton controlButtons[];   // array of controlButtons
     private JLabel statusBar;           // label that displays event information
 
@@ -27,11 +30,19 @@ public class PanelFrame extends JFrame
     // "setboard"
 
     private Timer autoSolveTimer;       // Timer for every move in "Auto Solve" mode
+    private SolveWorker solveWorker;    // Background search of "Solve", null if none
+
+    // Fewest milliseconds between two search progress updates of the status bar
+    private static final int PROGRESSUPDATEMS = 100;
+
+    // Solutions kept across "Solve" clicks
+    private static SolutionCache solutionCache =
+            new SolutionCache(Constants.SOLUTIONCACHESIZE);
 
     // no-argument constructor
     public PanelFrame()
     {
-        super("8 Tiles Puzzle" );
+        super((Constants.BOARDSIZE - 1) + " Tiles Puzzle" );
         displayAuthorInfo();
 
         // Returns a randomly generated board on start as long as it is not already solved
@@ -61,9 +72,9 @@ public class PanelFrame extends JFrame
     private void createTileButtons()
     {
         // Setup the buttons for the top of the screen
-        buttons = new JButton[ 9];      // create buttons array
+        buttons = new JButton[Constants.BOARDSIZE];     // create buttons array
         buttonJPanel = new JPanel();    // set up panel
-        buttonJPanel.setLayout(new GridLayout(3,3));  // 3x3 GridLayout
+        buttonJPanel.setLayout(new GridLayout(Constants.numRows, Constants.numCols));
         //buttonJPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
         //Border raisedEtched = BorderFactory.createEtchedBorder(EtchedBorder.RAISED);
         //buttonJPanel.setBorder(raisedEtched);
@@ -100,7 +111,7 @@ public class PanelFrame extends JFrame
 
         int[] board = node.getBoard().getBoardArr();
         // Create and add numbered buttons
-        for(int i = 0; i < 9; i++) {
+        for(int i = 0; i < Constants.BOARDSIZE; i++) {
             buttons[i].setText(Integer.toString(board[i]));
 
             // Make 0 Tile an Empty Spot
@@ -136,9 +147,9 @@ public class PanelFrame extends JFrame
                 // TO DO CHECK FOR VALID MOVE
                 String tileToMove = thisButton.getText();
                 int tileToMoveAsInt = Integer.parseInt((tileToMove));
-                String newBoard = node.getBoard().makeMove((tileToMoveAsInt));
+                Board newBoard = node.getBoard().makeMove((tileToMoveAsInt));
 
-                if(!(newBoard.equals("")))
+                if(newBoard != null)
                 {
                     node = new Node(newBoard);
                     buttons[emptySpotPos].setText(tileToMove);
@@ -202,7 +213,8 @@ public class PanelFrame extends JFrame
                 for(int i = 0; i < Constants.BOARDSIZE; i++)
                 {
                     buttons[i].addActionListener(new tileButtonSlideEventHandler(i));
-                    userInputBoard += buttons[i].getText();
+                    userInputBoard += Character.forDigit(
+                            Integer.parseInt(buttons[i].getText()), 16);
                 }
                 node = new Node(userInputBoard);
                 isSolved = (node.getHeuristicValue() == 0)? true:false;
@@ -224,7 +236,7 @@ public class PanelFrame extends JFrame
     private void createControlButtons()
     {
         // Setup the control buttons for the bottom of the screen
-        controlButtons = new JButton[ 4 ]; // create controlButtons array
+        controlButtons = new JButton[ 5 ]; // create controlButtons array
         controlButtonJPanel = new JPanel(); // set up panel
         // GridLayout 1 row high, controlButtons.length rows wide
         controlButtonJPanel.setLayout(new FlowLayout());
@@ -233,7 +245,8 @@ public class PanelFrame extends JFrame
         controlButtons[0] = new JButton("Randomize");
         controlButtons[1] = new JButton("Set Board");
         controlButtons[2] = new JButton("Solve");
-        controlButtons[3] = new JButton("Exit");
+        controlButtons[3] = new JButton("Cancel");
+        controlButtons[4] = new JButton("Exit");
 
         for (JButton i: controlButtons)
         {
@@ -241,6 +254,7 @@ public class PanelFrame extends JFrame
             controlButtonJPanel.add(i); // add button to panel
             i.addActionListener(new controlButtonHandler() );
         }
+        controlButtons[3].setEnabled(false);    // Only while solving
     }
 
     //***************************************************************************
@@ -288,12 +302,15 @@ public class PanelFrame extends JFrame
                 if(isValidBoardToSolve())
                 {
                     isSolved = true;
-                    //disableAllButtons();
                     autoSolveMode();
-                    //enableAllButtons();
                     moveCount = 0;
                 }
             }
+            else if (event.getActionCommand().equals(("Cancel")))
+            {
+                if(solveWorker != null)
+                    solveWorker.cancel(true);
+            }
 
         }
     }// end inner class controlButtonHandler
@@ -376,22 +393,39 @@ public class PanelFrame extends JFrame
                         JOptionPane.INFORMATION_MESSAGE);
     }
 
-    // Automatically solves game board using SearchTree
-    // @param node - current board in which user entered autosolve mode
+    // Automatically solves game board using SearchTree. The search runs in the
+    // background while the window stays responsive; only "Cancel" and "Exit" can be
+    // clicked until it is done, then the solution is played back.
     private void autoSolveMode()
     {
         System.out.println("Solving puzzle automatically...............");
-        SearchTree st = new SearchTree();
-        Node solutionNode = st.autoSolve(node);
-        Stack<Node> solutionPathStack = st.createSolutionPath(solutionNode);
+        disableAllButtons();
+        controlButtons[3].setEnabled(true);     // Cancel
+        controlButtons[4].setEnabled(true);     // Exit
+        statusBar.setText("Solving...");
+
+        solveWorker = new SolveWorker(node);
+        solveWorker.execute();
+    }
+
+    // Plays back a solution, one move per timer tick; each board is built when it is
+    // shown
+    private void playSolution(Solution solution)
+    {
+        final Iterator<Board> boards = solution.iterator();
+        if(!boards.hasNext())               // Impossible board with no better board
+        {
+            updateStatusBar();
+            return;
+        }
 
         ActionListener listener = new AbstractAction()
         {
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                Node temp = solutionPathStack.pop();
-                int[] boardArr = temp.getBoard().getBoardArr();
+                Board temp = boards.next();
+                int[] boardArr = temp.getBoardArr();
                 moveCount++;
                 heuristicVal = temp.getHeuristicValue();
                 //printBoard(temp);
@@ -401,7 +435,7 @@ public class PanelFrame extends JFrame
                     buttons[i].setVisible(boardArr[i]!=0);
                 }
                 updateStatusBar();
-                if(solutionPathStack.isEmpty()) { autoSolveTimer.stop(); }
+                if(!boards.hasNext()) { autoSolveTimer.stop(); }
             }
         };
         autoSolveTimer = new Timer(300, listener);
@@ -409,6 +443,99 @@ public class PanelFrame extends JFrame
 
     }
 
+    // @return solution of a board, or path to the best board if it is impossible to
+    //         solve; the search is released once it returns
+    private Solution createSolution(Node rootNode,
+                                    SearchProgressListener progressListener)
+    {
+        // A* would keep too many boards of the larger puzzles in memory, IDA* keeps
+        // only the current path
+        Solver solver;
+        if(Constants.BOARDSIZE > 9 && rootNode.getBoard().isSolvable())
+        {
+            IDAStarSearch ida = new IDAStarSearch(new LinearConflictHeuristic());
+            ida.setProgressListener(progressListener);
+            solver = ida;
+        }
+        else
+        {
+            SearchTree st = new SearchTree(SearchMode.TABLE);
+            st.setProgressListener(progressListener);
+            solver = st;
+        }
+
+        // Boards solved before, or on the path of one, are answered from the cache
+        CachingSolver cachingSolver = new CachingSolver(solver, solutionCache);
+        return Solution.solve(cachingSolver, rootNode);
+    }
+
+    //***************************************************************************
+    // inner class that searches in the background and shows the search progress in
+    // the status bar, at most every PROGRESSUPDATEMS milliseconds
+    private class SolveWorker extends SwingWorker<Solution, String>
+            implements SearchProgressListener
+    {
+        private Node rootNode;
+        private long lastUpdateTime = 0;
+
+        public SolveWorker(Node rootNode)
+        {
+            this.rootNode = rootNode;
+        }
+
+        // Runs on the background thread; cancel(true) interrupts it
+        @Override
+        protected Solution doInBackground()
+        {
+            return createSolution(rootNode, this);
+        }
+
+        // Called by the search on the background thread
+        @Override
+        public void progress(long numMovesTried, int queueSize, int bestHeuristicValue)
+        {
+            long now = System.currentTimeMillis();
+            if(now - lastUpdateTime < PROGRESSUPDATEMS)
+                return;
+            lastUpdateTime = now;
+            publish("Solving...   Boards tried: " + numMovesTried + "   Waiting: " +
+                    queueSize + "   Best heuristic value: " + bestHeuristicValue);
+        }
+
+        // Runs on the event thread with the latest progress updates
+        @Override
+        protected void process(List<String> updates)
+        {
+            if(!isCancelled())
+                statusBar.setText(updates.get(updates.size() - 1));
+        }
+
+        // Runs on the event thread once the search is done or cancelled
+        @Override
+        protected void done()
+        {
+            solveWorker = null;
+            enableAllButtons();
+            controlButtons[3].setEnabled(false);
+
+            if(isCancelled())
+            {
+                isSolved = false;
+                statusBar.setText("Solve cancelled.");
+                return;
+            }
+            try
+            {
+                playSolution(get());
+            }
+            catch(InterruptedException | ExecutionException e)
+            {
+                isSolved = false;
+                statusBar.setText("Solve failed: " + e.getCause());
+            }
+        }
+    }
+
     private void updateStatusBar()
     {
         statusBar.setText("Heuristic Value: "+heuristicVal+"     Move Count: "+moveCount);
@@ -0,0 +1,320 @@
+/*
+Class: PatternDatabase
+This class builds and writes additive pattern databases. The tiles are split into
+disjoint groups (patterns, e.g. 1-4 and 5-8 on the 3X3 board) covering every tile, so
+the sum is 0 only for the goal board. For every placement of a
+pattern's tiles, the database holds the fewest moves of those tiles needed to bring
+them to their goal positions, found by a breadth first search back from the goal in
+which moving any other tile is free. Because only moves of the pattern's own tiles are
+counted, the values of disjoint patterns can be added and still never overestimate.
+
+The databases are built once and written to a compact binary file which is read by
+PatternDatabaseHeuristic through a memory mapped file:
+
+    int     MAGIC
+    int     board size (number of cells)
+    int     number of patterns
+    for each pattern:  int number of tiles, int tile...
+    for each pattern:  one byte per placement of its tiles (see rank())
+*/
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class PatternDatabase
+{
+    public static final int MAGIC = 0x50444231;         // "PDB1"
+    private static final byte UNSEEN = (byte) 0xFF;
+
+    private PatternDatabase()
+    {}
+
+    // Builds the databases of the given patterns (for the board size and goal in
+    // Constants) and writes them to a file
+    // @throws IllegalArgumentException if the patterns do not cover every tile, or the
+    //         search of a pattern needs more states than an array holds
+    public static void build(int[][] patterns, File file) throws IOException
+    {
+        checkPatterns(patterns);
+        for(int[] pattern: patterns)
+        {
+            // The search has a state per placement and blank position
+            long numStates = numPlacements(pattern.length) * Constants.BOARDSIZE;
+            if(numStates > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Pattern of " + pattern.length +
+                        " tiles needs " + numStates + " states, at most " +
+                        Integer.MAX_VALUE + " fit: use smaller patterns");
+        }
+        byte[][] tables = new byte[patterns.length][];
+        for(int x = 0; x < patterns.length; x++)
+            tables[x] = buildPattern(patterns[x]);
+
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(Constants.BOARDSIZE);
+            out.writeInt(patterns.length);
+            for(int[] pattern: patterns)
+            {
+                out.writeInt(pattern.length);
+                for(int tile: pattern)
+                    out.writeInt(tile);
+            }
+            for(byte[] table: tables)
+                out.write(table);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    // @return number of placements of a pattern of numTiles tiles
+    public static long numPlacements(int numTiles)
+    {
+        long count = 1;
+        for(int x = 0; x < numTiles; x++)
+            count *= Constants.BOARDSIZE - x;
+        return count;
+    }
+
+    // Ranks a placement of a pattern's tiles: every position is numbered among the
+    // positions not taken by the tiles before it
+    // @param positions: board position of each tile of the pattern
+    // @return index of the placement, 0 to numPlacements(positions.length) - 1
+    public static int rank(int[] positions, int numTiles)
+    {
+        int rank = 0;
+        for(int x = 0; x < numTiles; x++)
+        {
+            int pos = positions[x];
+            for(int y = 0; y < x; y++)
+                if(positions[y] < positions[x])
+                    pos--;
+            rank = rank * (Constants.BOARDSIZE - x) + pos;
+        }
+        return rank;
+    }
+
+    // rank() of positions packed 4 bits each, first tile in the lowest bits, so a
+    // placement read from a board needs no array
+    public static int rank(long packedPositions, int numTiles)
+    {
+        int rank = 0;
+        for(int x = 0; x < numTiles; x++)
+        {
+            int position = (int) (packedPositions >>> (x * Board.BITSPERCELL))
+                           & (int) Board.CELLMASK;
+            int pos = position;
+            for(int y = 0; y < x; y++)
+                if(((packedPositions >>> (y * Board.BITSPERCELL)) & Board.CELLMASK)
+                        < position)
+                    pos--;
+            rank = rank * (Constants.BOARDSIZE - x) + pos;
+        }
+        return rank;
+    }
+
+    // Reverse of rank(): fills positions from the index of a placement
+    public static void unrank(int rank, int numTiles, int[] positions)
+    {
+        for(int x = numTiles - 1; x >= 0; x--)
+        {
+            int base = Constants.BOARDSIZE - x;
+            positions[x] = rank % base;
+            rank /= base;
+        }
+
+        // Turn numbers among free positions back into board positions
+        boolean[] taken = new boolean[Constants.BOARDSIZE];
+        for(int x = 0; x < numTiles; x++)
+        {
+            int pos = 0;
+            for(int free = positions[x]; taken[pos] || free > 0; pos++)
+                if(!taken[pos])
+                    free--;
+            positions[x] = pos;
+            taken[pos] = true;
+        }
+    }
+
+    // Breadth first search over (placement, blank position) from the goal, where moves
+    // of the pattern's tiles cost 1 and moves of other tiles cost 0
+    // @return fewest pattern moves for each placement, over all blank positions
+    private static byte[] buildPattern(int[] pattern)
+    {
+        int size = Constants.BOARDSIZE;
+        int numTiles = pattern.length;
+        int numPlacements = (int) numPlacements(numTiles);    // Checked by build()
+        byte[] distances = new byte[numPlacements * size];
+        Arrays.fill(distances, UNSEEN);
+
+        int[] positions = new int[numTiles];
+        for(int x = 0; x < numTiles; x++)
+            positions[x] = goalPosition(pattern[x]);
+        int start = rank(positions, numTiles) * size + goalPosition(0);
+        distances[start] = 0;
+
+        // 0-1 breadth first search: free moves go to the front of the deque
+        IntDeque deque = new IntDeque();
+        deque.addFirst(start);
+        int[] occupant = new int[size];
+        while(!deque.isEmpty())
+        {
+            int state = deque.pollFirst();
+            int blank = state % size;
+            int placement = state / size;
+            int moves = distances[state];
+            unrank(placement, numTiles, positions);
+            Arrays.fill(occupant, -1);
+            for(int x = 0; x < numTiles; x++)
+                occupant[positions[x]] = x;
+
+            for(int tilePos: Board.getSlidePositions(blank))
+            {
+                int tile = occupant[tilePos];
+                int next;
+                int nextMoves;
+                if(tile < 0)
+                {
+                    next = placement * size + tilePos;
+                    nextMoves = moves;
+                }
+                else
+                {
+                    positions[tile] = blank;
+                    next = rank(positions, numTiles) * size + tilePos;
+                    positions[tile] = tilePos;
+                    nextMoves = moves + 1;
+                }
+
+                int known = distances[next] & 0xFF;
+                if(known != (UNSEEN & 0xFF) && known <= nextMoves)
+                    continue;
+                distances[next] = (byte) nextMoves;
+                if(nextMoves == moves)
+                    deque.addFirst(next);
+                else
+                    deque.addLast(next);
+            }
+        }
+
+        // Keep the best blank position of each placement
+        byte[] table = new byte[numPlacements];
+        for(int placement = 0; placement < numPlacements; placement++)
+        {
+            int best = UNSEEN & 0xFF;
+            for(int blank = 0; blank < size; blank++)
+                best = Math.min(best, distances[placement * size + blank] & 0xFF);
+            table[placement] = (byte) best;
+        }
+        return table;
+    }
+
+    // @return board position where a tile belongs
+    public static int goalPosition(int tile)
+    {
+        return Constants.tileGoalRow[tile] * Constants.numCols
+                + Constants.tileGoalCol[tile];
+    }
+
+    // @throws IllegalArgumentException unless every tile is in exactly one pattern; a
+    //         tile in no pattern would let boards other than the goal board sum to 0
+    static void checkPatterns(int[][] patterns)
+    {
+        boolean[] used = new boolean[Constants.BOARDSIZE];
+        for(int[] pattern: patterns)
+        {
+            for(int tile: pattern)
+            {
+                if(tile <= 0 || tile >= Constants.BOARDSIZE || used[tile])
+                    throw new IllegalArgumentException("Patterns must be disjoint tiles");
+                used[tile] = true;
+            }
+        }
+        for(int tile = 1; tile < Constants.BOARDSIZE; tile++)
+        {
+            if(!used[tile])
+                throw new IllegalArgumentException("Tile " + tile + " is in no pattern");
+        }
+    }
+
+    // Growable double ended queue of ints
+    private static class IntDeque
+    {
+        private int[]   items = new int[1024];
+        private int     head = 0;
+        private int     size = 0;
+
+        boolean isEmpty()
+        {
+            return size == 0;
+        }
+
+        void addFirst(int item)
+        {
+            growIfFull();
+            head = (head - 1) & (items.length - 1);
+            items[head] = item;
+            size++;
+        }
+
+        void addLast(int item)
+        {
+            growIfFull();
+            items[(head + size) & (items.length - 1)] = item;
+            size++;
+        }
+
+        int pollFirst()
+        {
+            int item = items[head];
+            head = (head + 1) & (items.length - 1);
+            size--;
+            return item;
+        }
+
+        private void growIfFull()
+        {
+            if(size < items.length)
+                return;
+            int[] bigger = new int[items.length * 2];
+            for(int x = 0; x < size; x++)
+                bigger[x] = items[(head + x) & (items.length - 1)];
+            items = bigger;
+            head = 0;
+        }
+    }
+
+    // Builds the databases of the given patterns (one argument per pattern, tiles
+    // separated by commas) into the given file, e.g.
+    //   java PatternDatabase pdb.bin 1,2,3,4 5,6,7,8
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length < 2)
+        {
+            System.out.println("Usage: java PatternDatabase <file> <tiles> <tiles>...");
+            return;
+        }
+
+        int[][] patterns = new int[args.length - 1][];
+        for(int x = 1; x < args.length; x++)
+        {
+            String[] tiles = args[x].split(",");
+            patterns[x - 1] = new int[tiles.length];
+            for(int y = 0; y < tiles.length; y++)
+                patterns[x - 1][y] = Integer.parseInt(tiles[y].trim());
+        }
+
+        long start = System.currentTimeMillis();
+        build(patterns, new File(args[0]));
+        System.out.println("Built " + patterns.length + " pattern databases in " +
+                (System.currentTimeMillis() - start) + " ms.");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+Class: PatternDatabaseHeuristic
+Sum of the values of disjoint additive pattern databases (see PatternDatabase). The
+database file is memory mapped read only instead of being read onto the heap: opening it
+is instant whatever its size, each lookup is a single byte read, and the operating
+system shares the pages between all JVMs on the host that map the same file.
+
+Only the pattern of the tile that moved changes, so updating a board after a move is
+two lookups in one pattern. A pattern's tile positions are read from the board key
+into one long (4 bits per tile), so neither estimate() nor update() allocates, and one
+heuristic may be shared by several threads.
+*/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PatternDatabaseHeuristic implements Heuristic
+{
+    private MappedByteBuffer    tables;
+    private int[][]             patterns;       // Tiles of each pattern
+    private int[]               tableOffsets;   // Offset of each pattern's table
+    private int[]               patternOfTile;  // Pattern of each tile, -1 for blank
+    private int[]               indexOfTile;    // Index of each tile in its pattern
+
+    // CONSTRUCTOR
+    // Maps a database file written by PatternDatabase.build()
+    // @throws IllegalArgumentException if the patterns do not cover every tile
+    public PatternDatabaseHeuristic(File file) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            tables = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally
+        {
+            channel.close();    // The mapping stays valid after the channel is closed
+        }
+
+        if(tables.getInt(0) != PatternDatabase.MAGIC)
+            throw new IOException("Not a pattern database file: " + file);
+        if(tables.getInt(4) != Constants.BOARDSIZE)
+            throw new IOException("Pattern database is for another board size: " + file);
+
+        int numPatterns = tables.getInt(8);
+        int offset = 12;
+        patterns = new int[numPatterns][];
+        for(int x = 0; x < numPatterns; x++)
+        {
+            patterns[x] = new int[tables.getInt(offset)];
+            offset += 4;
+            for(int y = 0; y < patterns[x].length; y++, offset += 4)
+                patterns[x][y] = tables.getInt(offset);
+        }
+        PatternDatabase.checkPatterns(patterns);
+
+        patternOfTile = new int[Constants.BOARDSIZE];
+        indexOfTile = new int[Constants.BOARDSIZE];
+        Arrays.fill(patternOfTile, -1);
+        for(int x = 0; x < numPatterns; x++)
+        {
+            for(int y = 0; y < patterns[x].length; y++)
+            {
+                patternOfTile[patterns[x][y]] = x;
+                indexOfTile[patterns[x][y]] = y;
+            }
+        }
+
+        tableOffsets = new int[numPatterns];
+        long end = offset;
+        for(int x = 0; x < numPatterns && end <= tables.capacity(); x++)
+        {
+            tableOffsets[x] = (int) end;
+            end += PatternDatabase.numPlacements(patterns[x].length);
+        }
+        if(end != tables.capacity())
+            throw new IOException("Pattern database file is truncated: " + file);
+    }
+
+    @Override
+    public int estimate(long boardKey)
+    {
+        int hvalue = 0;
+        for(int x = 0; x < patterns.length; x++)
+            hvalue += lookup(x, patternPositions(x, boardKey));
+        return hvalue;
+    }
+
+    @Override
+    public int update(int heuristicValue, long boardKey, int tile, int from, int to)
+    {
+        int pattern = patternOfTile[tile];
+
+        // The board before the move differs only in the position of the moved tile
+        long positions = patternPositions(pattern, boardKey);
+        int shift = indexOfTile[tile] * Board.BITSPERCELL;
+        long positionsBefore = (positions & ~(Board.CELLMASK << shift)) |
+                               ((long) from << shift);
+        return heuristicValue + lookup(pattern, positions) -
+               lookup(pattern, positionsBefore);
+    }
+
+    // @return database value of a pattern
+    // @param positions: board positions of the pattern's tiles, see patternPositions()
+    private int lookup(int pattern, long positions)
+    {
+        return tables.get(tableOffsets[pattern] +
+                          PatternDatabase.rank(positions, patterns[pattern].length));
+    }
+
+    // @return board positions of a pattern's tiles, 4 bits each in pattern order
+    private long patternPositions(int pattern, long boardKey)
+    {
+        long positions = 0;
+        for(int pos = 0; pos < Constants.BOARDSIZE; pos++)
+        {
+            int tile = Board.tileAt(boardKey, pos);
+            if(patternOfTile[tile] == pattern)
+                positions |= ((long) pos) << (indexOfTile[tile] * Board.BITSPERCELL);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+Class: PermutationRank
+Perfect hash of the 3X3 boards reachable from the goal board. A board is ranked by the
+position of its blank spot and the Lehmer code of its tiles in reading order (for each
+tile, the number of smaller tiles after it). On a board with an odd number of columns
+every move keeps the parity of the tiles' order. The last Lehmer digit is always 0,
+so swapping the last two tiles changes only the one before it, whose weight is 1!:
+the two boards of each pair of Lehmer ranks 2k and 2k + 1 have opposite parities, only
+one of them is reachable, and half of the Lehmer rank is unique among the reachable
+boards:
+
+    rank = blank position * (tiles! / 2) + Lehmer rank of the tiles / 2
+
+which numbers the 9 * 8! / 2 = 181,440 reachable boards 0 to 181,439 with no gaps.
+
+The tables are built for the 3X3 puzzle whatever puzzle is active when the class is
+loaded, and ranking a board while another puzzle is active throws
+IllegalStateException.
+*/
+
+public final class PermutationRank
+{
+    private static final PuzzleSpec PUZZLE = PuzzleSpec.forWidth(3);
+    private static final int BOARDSIZE = PUZZLE.getBoardSize();
+    private static final int NUMTILES = BOARDSIZE - 1;
+    private static final int[] FACTORIAL = new int[NUMTILES + 1];
+    static
+    {
+        FACTORIAL[0] = 1;
+        for(int x = 1; x <= NUMTILES; x++)
+            FACTORIAL[x] = FACTORIAL[x - 1] * x;
+    }
+
+    private static final int TILERANKS = FACTORIAL[NUMTILES] / 2;
+    private static final int GOALPARITY = tileParity(PUZZLE.getGoalKey());
+
+    private PermutationRank()
+    {}
+
+    // @return number of boards reachable from the goal board
+    public static int numRanks()
+    {
+        checkPuzzle();
+        return BOARDSIZE * TILERANKS;
+    }
+
+    // @return true if the board can reach the goal board (its tiles' order has the same
+    //         parity as the goal's), i.e. it has a rank
+    public static boolean isRanked(long boardKey)
+    {
+        checkPuzzle();
+        return tileParity(boardKey) == GOALPARITY;
+    }
+
+    // @return rank of a board reachable from the goal board
+    public static int rank(long boardKey)
+    {
+        checkPuzzle();
+        int blankPos = 0;
+        int lehmerRank = 0;
+        int seen = 0;               // Bit set of tiles already read
+        int digit = 0;
+        for(int pos = 0; pos < BOARDSIZE; pos++)
+        {
+            int tile = Board.tileAt(boardKey, pos);
+            if(tile == 0)
+            {
+                blankPos = pos;
+                continue;
+            }
+
+            // Smaller tiles after this one = smaller tiles not seen yet
+            int smaller = (tile - 1) - Integer.bitCount(seen & ((1 << tile) - 1));
+            seen |= 1 << tile;
+            lehmerRank += smaller * FACTORIAL[NUMTILES - 1 - digit];
+            digit++;
+        }
+        return blankPos * TILERANKS + lehmerRank / 2;
+    }
+
+    // @return board of the given rank
+    public static long unrank(int rank)
+    {
+        checkPuzzle();
+        int blankPos = rank / TILERANKS;
+        int[] tiles = unrankTiles(2 * (rank % TILERANKS));
+
+        // The other board of the pair has the last two tiles swapped
+        if(lehmerParity(2 * (rank % TILERANKS)) != GOALPARITY)
+            tiles = unrankTiles(2 * (rank % TILERANKS) + 1);
+
+        long boardKey = 0;
+        for(int pos = 0, x = 0; pos < BOARDSIZE; pos++)
+        {
+            if(pos == blankPos)
+                continue;
+            boardKey |= ((long) tiles[x++]) << (pos * Board.BITSPERCELL);
+        }
+        return boardKey;
+    }
+
+    // Board keys are those of the active puzzle, which must be the one ranked
+    private static void checkPuzzle()
+    {
+        if(Constants.puzzle != PUZZLE)
+            throw new IllegalStateException("PermutationRank ranks 3X3 boards, not " +
+                    Constants.numRows + "X" + Constants.numCols);
+    }
+
+    // @return tiles (1 to NUMTILES) in reading order of a Lehmer rank
+    private static int[] unrankTiles(int lehmerRank)
+    {
+        int[] tiles = new int[NUMTILES];
+        int unused = (1 << (NUMTILES + 1)) - 2;     // Bit set of tiles 1 to NUMTILES
+        for(int x = 0; x < NUMTILES; x++)
+        {
+            int smaller = lehmerRank / FACTORIAL[NUMTILES - 1 - x];
+            lehmerRank %= FACTORIAL[NUMTILES - 1 - x];
+
+            // Pick the unused tile with the given number of smaller unused tiles
+            int tile = unused;
+            for(int y = 0; y < smaller; y++)
+                tile &= tile - 1;
+            tiles[x] = Integer.numberOfTrailingZeros(tile);
+            unused &= ~(1 << tiles[x]);
+        }
+        return tiles;
+    }
+
+    // @return parity of the number of inversions of a board's tiles in reading order
+    private static int tileParity(long boardKey)
+    {
+        int seen = 0;
+        int inversions = 0;
+        for(int pos = 0; pos < BOARDSIZE; pos++)
+        {
+            int tile = Board.tileAt(boardKey, pos);
+            if(tile == 0)
+                continue;
+            inversions += (tile - 1) - Integer.bitCount(seen & ((1 << tile) - 1));
+            seen |= 1 << tile;
+        }
+        return inversions & 1;
+    }
+
+    // @return parity of the sum of the digits of a Lehmer rank (= inversions)
+    private static int lehmerParity(int lehmerRank)
+    {
+        int sum = 0;
+        for(int x = 0; x < NUMTILES; x++)
+        {
+            sum += lehmerRank / FACTORIAL[NUMTILES - 1 - x];
+            lehmerRank %= FACTORIAL[NUMTILES - 1 - x];
+        }
+        return sum & 1;
+    }
+}
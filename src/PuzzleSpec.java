@@ -0,0 +1,188 @@
+/*
+Class: PuzzleSpec
+Definition of the puzzle for one board width: the row and column of every position,
+the goal position of every tile (tiles 1 to N*N-1 in reading order, blank spot last),
+the packed goal board, the city-block distance of every tile from every position, and
+for every blank position the positions of the tiles that can slide into it and the
+move each slide makes. All tables are computed once per width and shared, so boards
+and searches look up the geometry instead of checking edges on every move.
+
+Boards are packed into a long with 4 bits per cell (see Board), which holds boards of
+up to 16 cells, so widths 2 to 4 (3, 8 and 15 tiles) can be the active puzzle, chosen
+with Constants.setPuzzleWidth. Width 5 (24 tiles) has no packed goal board; its boards
+are kept in two longs by WideBoard and solved by WideIDAStarSearch, which use the
+other tables here.
+*/
+
+import java.util.Arrays;
+
+public final class PuzzleSpec
+{
+    public static final int MINWIDTH = 2;
+    public static final int MAXWIDTH = 5;
+    public static final int MAXPACKEDWIDTH = 4;         // Widest board that fits a long
+
+    // Most moves needed to solve any board of a given width (index)
+    // (width 5: the best known upper bound)
+    private static final int[] MAXSOLUTIONLENGTH = {0, 0, 6, 31, 80, 205};
+
+    private static final PuzzleSpec[] SPECS = new PuzzleSpec[MAXWIDTH + 1];
+
+    private final int       width;
+    private final int       boardSize;
+    private final int[]     rowOf;              // Position -> row
+    private final int[]     colOf;              // Position -> column
+    private final int[]     goalRow;            // Tile -> goal row
+    private final int[]     goalCol;            // Tile -> goal column
+    private final int[]     goalPos;            // Tile -> goal position
+    private final int[]     distance;           // distance[tile * boardSize + pos]
+    private final int[][]   slidePositions;     // Blank position -> tiles that can slide
+    private final int[][]   slideMoves;         // Blank position -> move of each slide
+    private final long      goalKey;
+
+    // @return the shared definition of the puzzle of the given width
+    public static synchronized PuzzleSpec forWidth(int width)
+    {
+        if(width < MINWIDTH || width > MAXWIDTH)
+            throw new IllegalArgumentException("Board width must be between " +
+                    MINWIDTH + " and " + MAXWIDTH + ": " + width);
+        if(SPECS[width] == null)
+            SPECS[width] = new PuzzleSpec(width);
+        return SPECS[width];
+    }
+
+    // CONSTRUCTOR
+    private PuzzleSpec(int width)
+    {
+        this.width = width;
+        boardSize = width * width;
+
+        rowOf = new int[boardSize];
+        colOf = new int[boardSize];
+        for(int pos = 0; pos < boardSize; pos++)
+        {
+            rowOf[pos] = pos / width;
+            colOf[pos] = pos % width;
+        }
+
+        // Tile t belongs at position t - 1, the blank spot at the last position
+        goalRow = new int[boardSize];
+        goalCol = new int[boardSize];
+        goalPos = new int[boardSize];
+        long key = 0;
+        for(int tile = 0; tile < boardSize; tile++)
+        {
+            int pos = (tile == 0)? boardSize - 1: tile - 1;
+            goalPos[tile] = pos;
+            goalRow[tile] = rowOf[pos];
+            goalCol[tile] = colOf[pos];
+            if(width <= MAXPACKEDWIDTH)
+                key |= ((long) tile) << (pos * Board.BITSPERCELL);
+        }
+        goalKey = key;
+
+        distance = new int[boardSize * boardSize];
+        for(int tile = 0; tile < boardSize; tile++)
+            for(int pos = 0; pos < boardSize; pos++)
+                distance[tile * boardSize + pos] = Math.abs(goalRow[tile] - rowOf[pos])
+                                                   + Math.abs(goalCol[tile] - colOf[pos]);
+
+        slidePositions = new int[boardSize][];
+        slideMoves = new int[boardSize][];
+        for(int blank = 0; blank < boardSize; blank++)
+        {
+            int[] positions = new int[Constants.NUMMOVES];
+            int[] moves = new int[Constants.NUMMOVES];
+            int count = 0;
+            for(int move = 0; move < Constants.NUMMOVES; move++)
+            {
+                int row = rowOf[blank] + Constants.moveRowOffset[move];
+                int col = colOf[blank] + Constants.moveColOffset[move];
+                if(row < 0 || row >= width || col < 0 || col >= width)
+                    continue;
+                positions[count] = row * width + col;
+                moves[count] = move;
+                count++;
+            }
+            slidePositions[blank] = Arrays.copyOf(positions, count);
+            slideMoves[blank] = Arrays.copyOf(moves, count);
+        }
+    }
+
+    public int getWidth()
+    {
+        return width;
+    }
+
+    public int getBoardSize()
+    {
+        return boardSize;
+    }
+
+    // The following arrays are shared tables and must not be modified
+
+    public int[] getRowOf()
+    {
+        return rowOf;
+    }
+
+    public int[] getColOf()
+    {
+        return colOf;
+    }
+
+    public int[] getGoalRow()
+    {
+        return goalRow;
+    }
+
+    public int[] getGoalCol()
+    {
+        return goalCol;
+    }
+
+    public int getGoalPos(int tile)
+    {
+        return goalPos[tile];
+    }
+
+    // @return true if boards of this width fit a packed long key (see Board)
+    public boolean isPacked()
+    {
+        return width <= MAXPACKEDWIDTH;
+    }
+
+    // @return packed goal board
+    // @throws IllegalStateException if boards of this width are not packed
+    public long getGoalKey()
+    {
+        if(width > MAXPACKEDWIDTH)
+            throw new IllegalStateException(width + "X" + width +
+                    " boards do not fit a packed key");
+        return goalKey;
+    }
+
+    // @return city-block distance of a tile at the given position from its goal
+    public int getDistance(int tile, int pos)
+    {
+        return distance[tile * boardSize + pos];
+    }
+
+    // @return positions of the tiles that can slide into the blank spot
+    public int[] getSlidePositions(int blankPos)
+    {
+        return slidePositions[blankPos];
+    }
+
+    // @return move made by each slide of getSlidePositions
+    public int[] getSlideMoves(int blankPos)
+    {
+        return slideMoves[blankPos];
+    }
+
+    // @return most moves needed to solve any board of this width
+    public int getMaxSolutionLength()
+    {
+        return MAXSOLUTIONLENGTH[width];
+    }
+}
@@ -0,0 +1,439 @@
+/*
+Class: SMAStarSearch
+This class solves a board with simplified memory-bounded A* (SMA*). It searches like
+A*, but never keeps more than a fixed number of nodes: the node arrays and the two
+NodeIndexHeaps of the frontier are allocated up front for that many nodes (NODEBYTES
+each) and never grow, so a solve cannot run the JVM out of memory however hard the
+board is. When the pool is full, the worst leaf (highest f, then shallowest) is
+forgotten: its f value is backed up into its parent, which goes back to the open list
+so the leaf can be regenerated if it turns out to be the best choice after all.
+
+Successors are generated one at a time, the most promising first. The f value of a node
+is raised to the lowest f of its successors once all of them have been generated, so
+it keeps growing towards the real solution length as the search learns. If the budget
+holds a shortest solution path the solution is a shortest one; boards whose path would
+not fit are given up (f = infinity) and the best solution that fits is returned.
+
+Like IDAStarSearch the search is a tree search: it keeps no table of visited boards,
+only the move that undoes the previous move is never generated.
+*/
+
+import java.util.Stack;
+
+public class SMAStarSearch implements Solver
+{
+    private static final int NONE = -1;
+    private static final int INFINITY = 0x7FFF;         // f of a board given up
+    private static final int MAXSLOTS = Constants.NUMMOVES;
+
+    // Bytes per node, all allocated up front: key, blank, g, h, f and parent, parent
+    // slot and 3 masks, the child and forgotten f of each slot, the free stack, and an
+    // entry in each of the two heaps
+    public static final int NODEBYTES = 8 + 1 + 4 * 4 + 4 + 2 * 4 * MAXSLOTS + 4 +
+                                        2 * NodeIndexHeap.BYTESPERNODE;
+
+    private Heuristic       heuristic;
+    private int             maxNodes;
+    private int             maxDepth;           // Deepest node a path of maxNodes holds
+    private long            goalKey;
+
+    // Node pool, indexed by node; slot arrays by node * MAXSLOTS + slot, where a slot
+    // is a successor in the order of PuzzleSpec.getSlidePositions
+    private long[]          keys;
+    private byte[]          blanks;
+    private int[]           gValues;
+    private int[]           hValues;
+    private int[]           fValues;            // Backed up f
+    private int[]           parents;
+    private byte[]          parentSlots;        // Slot of the node in its parent
+    private byte[]          slotMasks;          // Successors to generate
+    private byte[]          inMemoryMasks;      // Successors in the pool
+    private byte[]          generatedMasks;     // Successors generated at least once
+    private int[]           children;           // Node of each successor in the pool
+    private int[]           forgottenF;         // f of each forgotten successor
+    private int[]           freeNodes;          // Stack of unused nodes
+    private int             numFree;
+
+    // Nodes with successors left to generate (lowest sortKey first), and nodes
+    // without successors in the pool (highest sortKey first)
+    private NodeIndexHeap   open;
+    private NodeIndexHeap   leaves;
+    private int             root;
+
+    private Successors      nextMoves;
+    private long            numMovesTried;
+    private int             numMoves;
+    private int             minHeuristicValSoFar;
+    private SearchProgressListener progressListener;
+    private SearchMetrics   metrics;            // Of the last solve
+    private long            setupNanos;         // Not yet reported by a solve
+
+    // CONSTRUCTOR
+    public SMAStarSearch()
+    {
+        this(new ManhattanHeuristic(), Constants.SMASTARMAXNODES);
+    }
+
+    // CHAINED CONSTRUCTOR Given heuristic and most nodes kept at once (at least 2)
+    public SMAStarSearch(Heuristic heuristic, int maxNodes)
+    {
+        long start = System.nanoTime();
+        if(maxNodes < 2)
+            throw new IllegalArgumentException("SMA* needs at least 2 nodes: " +
+                    maxNodes);
+        this.heuristic = heuristic;
+        this.maxNodes = maxNodes;
+        maxDepth = Math.min(maxNodes - 1, INFINITY - 1);
+        goalKey = Board.goalBoardKey();
+        keys = new long[maxNodes];
+        blanks = new byte[maxNodes];
+        gValues = new int[maxNodes];
+        hValues = new int[maxNodes];
+        fValues = new int[maxNodes];
+        parents = new int[maxNodes];
+        parentSlots = new byte[maxNodes];
+        slotMasks = new byte[maxNodes];
+        inMemoryMasks = new byte[maxNodes];
+        generatedMasks = new byte[maxNodes];
+        children = new int[maxNodes * MAXSLOTS];
+        forgottenF = new int[maxNodes * MAXSLOTS];
+        freeNodes = new int[maxNodes];
+        open = new NodeIndexHeap(maxNodes, false);
+        leaves = new NodeIndexHeap(maxNodes, true);
+        nextMoves = new Successors();
+        numMovesTried = 0;
+        numMoves = 0;
+        progressListener = null;
+        metrics = new SearchMetrics("SMASTAR");
+        setupNanos = System.nanoTime() - start;
+    }
+
+    // @return most nodes a search of the given number of bytes may keep
+    public static int maxNodesFor(long maxBytes)
+    {
+        return (int) Math.max(2, Math.min(Integer.MAX_VALUE / MAXSLOTS,
+                                          maxBytes / NODEBYTES));
+    }
+
+    // Sets a listener told about the progress of the search, or null for none
+    public void setProgressListener(SearchProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    public Heuristic getHeuristic()
+    {
+        return heuristic;
+    }
+
+    public int getMaxNodes()
+    {
+        return maxNodes;
+    }
+
+    // @return number of boards generated by the last solve, counting regenerated ones
+    public long getNumMovesTried()
+    {
+        return numMovesTried;
+    }
+
+    // @return number of moves of the last solution
+    public int getNumMoves()
+    {
+        return numMoves;
+    }
+
+    // @return counters and timings of the last solve
+    public SearchMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    // @return solution path, or an empty stack if the board is impossible to solve, no
+    //         solution fits in the node budget or the thread was interrupted
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        metrics = new SearchMetrics("SMASTAR");
+        metrics.setupNanos = setupNanos;
+        setupNanos = 0;
+        long start = System.nanoTime();
+        Stack<Node> solutionPathStack = new Stack<Node>();
+        numMovesTried = 0;
+        numMoves = 0;
+
+        Board rootBoard = rootNode.getBoard();
+        if(rootBoard.isSolvable())
+        {
+            int solution = search(rootBoard);
+            if(solution != NONE)
+            {
+                long pathStart = System.nanoTime();
+                solutionPathStack = createSolutionPath(solution);
+                metrics.pathNanos = System.nanoTime() - pathStart;
+                numMoves = gValues[solution];
+                metrics.solutionLength = numMoves;
+            }
+        }
+
+        metrics.searchNanos = System.nanoTime() - start - metrics.pathNanos;
+        metrics.peakMemoryBytes = (long) maxNodes * NODEBYTES;     // The budget
+        event.report(rootBoard.getBoardKey(), metrics);
+        return solutionPathStack;
+    }
+
+    // @return goal node, or NONE if there is no solution within the budget or the
+    //         thread was interrupted
+    private int search(Board rootBoard)
+    {
+        open.clear();
+        leaves.clear();
+        numFree = maxNodes;
+        for(int x = 0; x < maxNodes; x++)
+            freeNodes[x] = maxNodes - 1 - x;
+
+        int rootH = heuristic.estimate(rootBoard.getBoardKey());
+        minHeuristicValSoFar = rootH;
+        root = addNode(NONE, 0, rootBoard.getBoardKey(), rootBoard.getBlankPos(), 0,
+                rootH, rootH);
+
+        long numSteps = 0;
+        while(!open.isEmpty())
+        {
+            if((++numSteps & (Constants.PROGRESSINTERVAL - 1)) == 0)
+            {
+                if(progressListener != null)
+                    progressListener.progress(numMovesTried, open.size(),
+                                              minHeuristicValSoFar);
+                if(Thread.currentThread().isInterrupted())
+                    return NONE;
+            }
+
+            int node = open.peek();
+            if(fValues[node] >= INFINITY)
+                return NONE;                // Every path left is too long for the pool
+            if(keys[node] == goalKey)
+                return node;
+
+            generateNext(node);
+        }
+        return NONE;
+    }
+
+    // Generates the most promising successor of a node not in the pool, forgetting the
+    // worst leaf first if the pool is full
+    private void generateNext(int node)
+    {
+        int g = gValues[node];
+        Board.generateSuccessors(keys[node], blanks[node], hValues[node], heuristic,
+                                 nextMoves);
+        if(generatedMasks[node] == 0)
+            metrics.nodesExpanded++;
+
+        // Pick the slot with the lowest f, preferring slots never generated so a
+        // forgotten successor is only regenerated once the node's f has been backed
+        // up. Its f is never below the node's (pathmax) nor below what it was when it
+        // was forgotten.
+        int candidates = slotMasks[node] & ~inMemoryMasks[node];
+        if((candidates & ~generatedMasks[node]) != 0)
+            candidates &= ~generatedMasks[node];
+        int bestSlot = NONE;
+        int bestF = Integer.MAX_VALUE;
+        for(int slot = 0; slot < nextMoves.size(); slot++)
+        {
+            if((candidates & (1 << slot)) == 0)
+                continue;
+            int h = nextMoves.getHeuristicValue(slot);
+            int f = Math.max(fValues[node], g + 1 + h);
+            f = Math.max(f, forgottenF[node * MAXSLOTS + slot]);
+            if(h != 0 && g + 1 >= maxDepth)
+                f = INFINITY;               // Its successors would not fit in the pool
+            if(f < bestF)
+            {
+                bestF = f;
+                bestSlot = slot;
+            }
+        }
+        if(bestSlot == NONE)
+        {
+            open.remove(node);
+            return;
+        }
+
+        metrics.nodesGenerated++;
+        numMovesTried++;
+        if((generatedMasks[node] & (1 << bestSlot)) != 0)
+            metrics.nodesReopened++;
+
+        if(bestF < INFINITY && numFree == 0 && !forgetWorstLeaf(node, bestF, g + 1))
+        {
+            // The new board would be the worst leaf: forget it right away
+            forgottenF[node * MAXSLOTS + bestSlot] = bestF;
+            generatedMasks[node] |= 1 << bestSlot;
+            metrics.nodesForgotten++;
+        }
+        else if(bestF >= INFINITY)
+        {
+            // Given up: remember it as forgotten for good
+            forgottenF[node * MAXSLOTS + bestSlot] = INFINITY;
+            generatedMasks[node] |= 1 << bestSlot;
+            slotMasks[node] &= ~(1 << bestSlot);
+            if((slotMasks[node] & ~inMemoryMasks[node]) == 0)
+                open.remove(node);
+        }
+        else
+        {
+            int h = nextMoves.getHeuristicValue(bestSlot);
+            if(h < minHeuristicValSoFar)
+                minHeuristicValSoFar = h;
+            addNode(node, bestSlot, nextMoves.getBoardKey(bestSlot),
+                    nextMoves.getBlankPos(bestSlot), g + 1, h, bestF);
+        }
+        backUp(node);
+    }
+
+    // Adds a node to the pool and to the open list and leaves
+    // @return the node
+    private int addNode(int parent, int slot, long boardKey, int blankPos, int g, int h,
+                         int f)
+    {
+        int node = freeNodes[--numFree];
+        keys[node] = boardKey;
+        blanks[node] = (byte) blankPos;
+        gValues[node] = g;
+        hValues[node] = h;
+        fValues[node] = f;
+        parents[node] = parent;
+        parentSlots[node] = (byte) slot;
+        inMemoryMasks[node] = 0;
+        generatedMasks[node] = 0;
+
+        // Every slide except the one moving the tile back into the parent's blank spot
+        int[] positions = Constants.puzzle.getSlidePositions(blankPos);
+        int slotMask = 0;
+        for(int x = 0; x < positions.length; x++)
+        {
+            if(parent == NONE || positions[x] != blanks[parent])
+                slotMask |= 1 << x;
+            children[node * MAXSLOTS + x] = NONE;
+            forgottenF[node * MAXSLOTS + x] = 0;
+        }
+        slotMasks[node] = (byte) slotMask;
+        if(h == 0)
+            slotMasks[node] = 0;            // The goal board is never expanded
+        open.add(node, sortKey(node));
+        leaves.add(node, sortKey(node));
+
+        if(parent != NONE)
+        {
+            leaves.remove(parent);
+            children[parent * MAXSLOTS + slot] = node;
+            inMemoryMasks[parent] |= 1 << slot;
+            generatedMasks[parent] |= 1 << slot;
+            if((slotMasks[parent] & ~inMemoryMasks[parent]) == 0)
+                open.remove(parent);
+        }
+        if(open.size() > metrics.peakOpenListSize)
+            metrics.peakOpenListSize = open.size();
+        return node;
+    }
+
+    // Forgets the leaf with the highest f (the shallowest of those) other than the
+    // given node and the root, and backs its f up into its parent
+    // @param f, g: of the board about to be added
+    // @return false if there is no such leaf or it is better than the new board
+    private boolean forgetWorstLeaf(int keep, int f, int g)
+    {
+        // Set the given node and the root aside while looking at the worst leaf
+        boolean keepIsLeaf = leaves.remove(keep);
+        boolean rootIsLeaf = leaves.remove(root);
+        int leaf = leaves.isEmpty()? NONE: leaves.peek();
+        if(keepIsLeaf)
+            leaves.add(keep, sortKey(keep));
+        if(rootIsLeaf)
+            leaves.add(root, sortKey(root));
+        if(leaf == NONE ||
+           (sortKey(leaf) >>> 32) <= (((long) f << 16) | (INFINITY - g)))
+            return false;
+
+        int parent = parents[leaf];
+        int slot = parentSlots[leaf];
+        leaves.remove(leaf);
+        open.remove(leaf);
+        freeNodes[numFree++] = leaf;
+
+        children[parent * MAXSLOTS + slot] = NONE;
+        forgottenF[parent * MAXSLOTS + slot] = fValues[leaf];
+        inMemoryMasks[parent] &= ~(1 << slot);
+        open.add(parent, sortKey(parent));
+        if(inMemoryMasks[parent] == 0)
+            leaves.add(parent, sortKey(parent));
+        metrics.nodesForgotten++;
+        return true;
+    }
+
+    // Once all successors of a node have been generated, raises its f to the lowest f
+    // of its successors (in the pool or forgotten), and so on up to the root
+    private void backUp(int node)
+    {
+        while(node != NONE)
+        {
+            int slotMask = slotMasks[node];
+            int allSlots = slotMask | generatedMasks[node];
+            if((generatedMasks[node] & slotMask) != slotMask)
+                return;                     // A successor was never generated yet
+
+            int f = INFINITY;
+            for(int slot = 0; slot < MAXSLOTS; slot++)
+            {
+                if((allSlots & (1 << slot)) == 0)
+                    continue;
+                int child = children[node * MAXSLOTS + slot];
+                int childF = (child != NONE)? fValues[child]:
+                             forgottenF[node * MAXSLOTS + slot];
+                f = Math.min(f, childF);
+            }
+            if(f == fValues[node])
+                return;
+            setF(node, f);
+            node = parents[node];
+        }
+    }
+
+    // Changes the f value of a node, keeping the heaps in order
+    private void setF(int node, int f)
+    {
+        fValues[node] = f;
+        if(open.contains(node))
+            open.add(node, sortKey(node));
+        if(leaves.contains(node))
+            leaves.add(node, sortKey(node));
+    }
+
+    // @return f << 48 | (INFINITY - g) << 32 | node: the lowest key has the lowest f and
+    //         is the deepest of those, the highest the highest f and the shallowest
+    private long sortKey(int node)
+    {
+        return ((long) fValues[node] << 48) | ((long) (INFINITY - gValues[node]) << 32)
+               | node;
+    }
+
+    // @return solution path from the root down to the goal node
+    private Stack<Node> createSolutionPath(int goal)
+    {
+        Stack<Node> solutionPathStack = new Stack<Node>();
+        int depth = gValues[goal];
+
+        // Link the boards from the root down, then push them from the last board up
+        Node[] path = new Node[depth + 1];
+        for(int x = goal, d = depth; x != NONE; x = parents[x], d--)
+            path[d] = new Node(new Board(keys[x]));
+        for(int d = 1; d <= depth; d++)
+            path[d] = new Node(path[d].getBoard(), path[d - 1]);
+        for(int d = depth; d > 0; d--)
+            solutionPathStack.push(path[d]);
+        return solutionPathStack;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+Class: SearchMetrics
+Counters and timings of one solve, kept by SearchTree, IDAStarSearch and SMAStarSearch
+while they search and read with getMetrics() afterwards:
+
+- nodes generated: successor boards produced
+- nodes expanded: boards whose successors were generated
+- duplicates pruned: successors dropped because the board was already reached by a path
+  at least as short (IDA*: moves undoing the previous move)
+- nodes reopened: boards reached again by a shorter path and queued again (SMA*:
+  forgotten boards generated again)
+- nodes forgotten: boards SMA* dropped to stay within its node budget
+- peak open list size (IDA*: deepest depth) and peak memory estimate of the search's
+  tables
+- setup, search and path time: creating the solver's tables (0 when a solver is
+  reused), searching, and building the solution path
+
+The counters are plain fields updated by the search loop, which costs a few additions
+per expansion. Every solve is also reported as a SolveEvent to Java Flight Recorder,
+which only does work while a recording with the event enabled is running.
+*/
+
+import java.util.Locale;
+
+public final class SearchMetrics
+{
+    // Set by the solvers while searching
+    String  solver;
+    long    nodesGenerated;
+    long    nodesExpanded;
+    long    duplicatesPruned;
+    long    nodesReopened;
+    long    nodesForgotten;
+    int     peakOpenListSize;
+    long    peakMemoryBytes;
+    long    setupNanos;
+    long    searchNanos;
+    long    pathNanos;
+    int     solutionLength;
+
+    // CONSTRUCTOR
+    SearchMetrics(String solver)
+    {
+        this.solver = solver;
+        solutionLength = -1;
+    }
+
+    // @return search mode or algorithm that was run
+    public String getSolver()
+    {
+        return solver;
+    }
+
+    public long getNodesGenerated()
+    {
+        return nodesGenerated;
+    }
+
+    public long getNodesExpanded()
+    {
+        return nodesExpanded;
+    }
+
+    public long getDuplicatesPruned()
+    {
+        return duplicatesPruned;
+    }
+
+    public long getNodesReopened()
+    {
+        return nodesReopened;
+    }
+
+    public long getNodesForgotten()
+    {
+        return nodesForgotten;
+    }
+
+    public int getPeakOpenListSize()
+    {
+        return peakOpenListSize;
+    }
+
+    // @return approximate bytes of the visited tables, node arenas and open lists
+    public long getPeakMemoryBytes()
+    {
+        return peakMemoryBytes;
+    }
+
+    public long getSetupNanos()
+    {
+        return setupNanos;
+    }
+
+    public long getSearchNanos()
+    {
+        return searchNanos;
+    }
+
+    public long getPathNanos()
+    {
+        return pathNanos;
+    }
+
+    // @return number of moves of the solution, or -1 if none was found
+    public int getSolutionLength()
+    {
+        return solutionLength;
+    }
+
+    // @return average number of successors per expanded board
+    public double getBranchingFactor()
+    {
+        return (nodesExpanded == 0)? 0: (double) nodesGenerated / nodesExpanded;
+    }
+
+    // @return effective branching factor b: a uniform tree of depth solution length
+    //         with branching factor b has as many nodes as were generated
+    //         (1 + b + b^2 + ... + b^d = generated + 1), or 0 without a solution
+    public double getEffectiveBranchingFactor()
+    {
+        int depth = solutionLength;
+        if(depth <= 0 || nodesGenerated == 0)
+            return 0;
+
+        // The tree size grows with b, so bisect between 1 and the generated count
+        double low = 1;
+        double high = Math.max(2, nodesGenerated);
+        for(int x = 0; x < 100 && high - low > 1e-9; x++)
+        {
+            double b = (low + high) / 2;
+            double treeSize = 1;
+            double level = 1;
+            for(int d = 1; d <= depth; d++)
+            {
+                level *= b;
+                treeSize += level;
+            }
+            if(treeSize > nodesGenerated + 1)
+                high = b;
+            else
+                low = b;
+        }
+        return low;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(Locale.ROOT, "%s: length %d, generated %d, expanded %d, " +
+                "duplicates %d, reopened %d, forgotten %d, peak open %d, " +
+                "peak memory %d KB, branching %.2f (effective %.3f), setup %.3f ms, " +
+                "search %.3f ms, path %.3f ms", solver, solutionLength, nodesGenerated,
+                nodesExpanded, duplicatesPruned, nodesReopened, nodesForgotten,
+                peakOpenListSize, peakMemoryBytes / 1024,
+                getBranchingFactor(), getEffectiveBranchingFactor(), setupNanos / 1e6,
+                searchNanos / 1e6, pathNanos / 1e6);
+    }
+}
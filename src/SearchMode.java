@@ -0,0 +1,30 @@
+/*
+Enum: SearchMode
+Search strategies of the SearchTree class.
+GREEDY: best first on heuristic value only. Fast, but the path found is usually not the
+        shortest one.
+ASTAR:  best first on moves so far plus heuristic value (f = g + h). Always finds a
+        shortest path.
+TABLE:  walks the precomputed DistanceTable of exact distances (3X3 boards only), which
+        finds a shortest path in about 30 lookups. Falls back to ASTAR on other boards.
+BIDIRECTIONAL: A* forward from the board and backward from the goal board at the same
+        time, each side estimating the distance to the other end, until the two meet on
+        a shortest path. Each side only searches about half the depth.
+BAE:    bidirectional search where each side also subtracts its distance estimate to
+        its own start (BAE*), so boards that look closer to the other side are tried
+        first and the search can stop sooner. Always finds a shortest path.
+ANYTIME: anytime weighted A*: best first on g + weight * h, which finds a first solution
+        quickly, then keeps searching for shorter ones, skipping boards that cannot lead
+        to one, until it proves the last one shortest or its deadline passes. Every
+        solution is reported to a SolutionListener as soon as it is found.
+*/
+
+public enum SearchMode
+{
+    GREEDY,
+    ASTAR,
+    TABLE,
+    BIDIRECTIONAL,
+    BAE,
+    ANYTIME
+}
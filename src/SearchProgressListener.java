@@ -0,0 +1,17 @@
+/*
+Interface: SearchProgressListener
+Receives the progress of a running search. The search calls it on its own thread every
+Constants.PROGRESSINTERVAL boards it expands, so implementations that update a GUI must
+hand the values over to the event thread (and may throttle them further).
+
+A search also stops early, returning what it has so far, when its thread is
+interrupted; it checks at the same points it reports progress.
+*/
+
+public interface SearchProgressListener
+{
+    // @param numMovesTried: unique boards tried so far
+    // @param queueSize: boards waiting to be expanded (the current path length for IDA*)
+    // @param bestHeuristicValue: lowest heuristic value of any board tried so far
+    void progress(long numMovesTried, int queueSize, int bestHeuristicValue);
+}
@@ -1,151 +1,667 @@
 /*
 Class: SearchTree
-This class implements autosolve mode as specified in TilesDriver class. A hashmap is
-used to determine if a board has been visited before as to avoid repeating work or
-looping. A priority queue is used to implement a minheap to check the next move
-(childen) boards with the best/lowest heuristic value first for efficiency as opposed
-to a brute force method. If a solution is not found, returns the best possible board.
+This class implements autosolve mode as specified in TilesDriver class. A VisitedTable
+is used to determine if a board has been visited before as to avoid repeating work or
+looping. In GREEDY mode a priority queue is used to implement a minheap to check the
+next move (childen) boards with the best/lowest heuristic value first for efficiency as
+opposed to a brute force method. In ASTAR mode boards are checked by lowest moves so far
+plus heuristic value from a BucketQueue, which finds a shortest solution. In TABLE mode
+a shortest solution is read from the precomputed DistanceTable. In ANYTIME mode the
+weighted BucketQueue search reports every shorter solution to a SolutionListener until
+its deadline. In BIDIRECTIONAL and BAE
+modes a second search runs backward from the goal board with its own VisitedTable,
+NodeArena and BucketQueue; every new board is looked up in the other side's visited
+table, and once no shorter meeting is possible the two halves are spliced into one
+path. Nodes are kept in a NodeArena; Node objects are only created for the returned
+path. If a solution is not found, returns the best possible board. Counters and
+timings of the solve are kept in a SearchMetrics (see getMetrics).
 */
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.PriorityQueue;
 import java.util.Stack;
 
-public class SearchTree
+public class SearchTree implements Solver
 {
-    private HashMap             nodeHMap;
-    private PriorityQueue<Node> pQueue;
+    private SearchMode          mode;
+    private Heuristic           heuristic;
+    private VisitedTable        visited;
+    private NodeArena           arena;
+    private IndexHeap           pQueue;                 // Open list of GREEDY mode
+    private BucketQueue         fQueue;                 // Open list of ASTAR mode
+    private VisitedTable        backVisited;            // Backward side of BIDIRECTIONAL
+    private NodeArena           backArena;              // and BAE modes
+    private BucketQueue         backQueue;
+    private Successors          nextMoves;              // Reused for every expansion
     private Stack<Node>         solutionPathStack;
 
-    private Node                bestBoardSoFar;
+    private int                 bestBoardSoFar;         // Arena index of best board
     private int                 minHeuristicValSoFar;
     private int                 numMoves;
+    private int                 unsolvableSearchLimit;  // Most boards tried if unsolvable
+    private int                 bestMeetingLength;      // Shortest path through a meeting
+    private int                 meetingNode;            // Arena index of meeting board
+    private int                 backMeetingNode;        // and its backward arena index
+    private SearchProgressListener progressListener;
+    private long                numExpansions;
+    private SolutionListener    solutionListener;       // Solutions of ANYTIME mode
+    private long                deadlineMillis;         // Time budget, 0 for none
+    private long                deadlineNanos;          // System.nanoTime() to stop at
+    private double              weight;                 // Of h in ANYTIME mode
+    private volatile boolean    stopRequested;          // Set by stop()
+    private SearchMetrics       metrics;
 
 
 
     // CONSTRUCTOR
     public SearchTree()
     {
-        nodeHMap = new HashMap(Constants.HMAPSIZE);
-        pQueue = new PriorityQueue<Node>();
+        this(SearchMode.GREEDY);
+    }
+
+    // CHAINED CONSTRUCTOR Given search mode
+    public SearchTree(SearchMode mode)
+    {
+        this(mode, new ManhattanHeuristic());
+    }
+
+    // CHAINED CONSTRUCTOR Given search mode and heuristic
+    public SearchTree(SearchMode mode, Heuristic heuristic)
+    {
+        long start = System.nanoTime();
+        this.mode = mode;
+        this.heuristic = heuristic;
+        visited = new VisitedTable(Constants.HMAPSIZE);
+        arena = new NodeArena();
+        if(mode == SearchMode.GREEDY)
+            pQueue = new IndexHeap(Constants.HMAPSIZE);
+        else
+            fQueue = new BucketQueue(true);
+        if(isBidirectional())
+        {
+            backVisited = new VisitedTable(Constants.HMAPSIZE);
+            backArena = new NodeArena();
+            backQueue = new BucketQueue(true);
+        }
+        nextMoves = new Successors();
         solutionPathStack = new Stack<Node>();
-        bestBoardSoFar = null;
+        bestBoardSoFar = NodeArena.NOPARENT;
         minHeuristicValSoFar = Integer.MAX_VALUE;
         numMoves = 0;
+        unsolvableSearchLimit = Constants.UNSOLVABLESEARCHLIMIT;
+        progressListener = null;
+        numExpansions = 0;
+        solutionListener = null;
+        deadlineMillis = 0;
+        deadlineNanos = Long.MAX_VALUE;
+        weight = Constants.ANYTIMEWEIGHT;
+        stopRequested = false;
+        metrics = new SearchMetrics(mode.name());
+        metrics.setupNanos = System.nanoTime() - start;
+    }
+
+    public SearchMode getMode()
+    {
+        return mode;
+    }
+
+    public Heuristic getHeuristic()
+    {
+        return heuristic;
+    }
+
+    public void setHeuristic(Heuristic heuristic)
+    {
+        this.heuristic = heuristic;
+    }
+
+    // Sets ASTAR tie-breaking between boards of equal f: prefer boards with more moves
+    // so far (closer to the goal, the default) or with fewer moves
+    public void setPreferHigherG(boolean preferHigherG)
+    {
+        if(mode != SearchMode.GREEDY)
+            fQueue = new BucketQueue(preferHigherG);
+        if(isBidirectional())
+            backQueue = new BucketQueue(preferHigherG);
+    }
+
+    // Sets the most boards tried on a board that is impossible to solve. A higher limit
+    // may find a better board, up to every reachable board.
+    public void setUnsolvableSearchLimit(int unsolvableSearchLimit)
+    {
+        this.unsolvableSearchLimit = unsolvableSearchLimit;
+    }
+
+    // Sets a listener told about the progress of the search, or null for none
+    public void setProgressListener(SearchProgressListener progressListener)
+    {
+        this.progressListener = progressListener;
+    }
+
+    // Sets a listener told about every solution of ANYTIME mode, or null for none
+    public void setSolutionListener(SolutionListener solutionListener)
+    {
+        this.solutionListener = solutionListener;
+    }
+
+    // Sets the wall-clock time a search may take, in milliseconds (0 for no limit).
+    // When it passes, the search stops and returns the best it has: in ANYTIME mode
+    // the shortest solution found so far.
+    public void setDeadline(long deadlineMillis)
+    {
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    // Stops the running search, e.g. from a SolutionListener that needs no shorter
+    // solution; it returns the best it has, as when the deadline passes
+    public void stop()
+    {
+        stopRequested = true;
+    }
+
+    // Sets the weight of the heuristic value in ANYTIME mode (at least 1)
+    public void setWeight(double weight)
+    {
+        this.weight = weight;
     }
 
-    // @return the size of the hash map indicated number of unique board moves tried
+    // @return the size of the visited table indicated number of unique board moves tried
     public int getNumMovesTried()
     {
-        return nodeHMap.size();
+        return isBidirectional()? visited.size() + backVisited.size(): visited.size();
+    }
+
+    // @return counters and timings of the last solve
+    public SearchMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    private boolean isBidirectional()
+    {
+        return mode == SearchMode.BIDIRECTIONAL || mode == SearchMode.BAE;
     }
 
     // @returns the solution node, or the best solution board if the board is
-    // imposssible to solve
+    // imposssible to solve, the thread was interrupted or the deadline passed first.
+    // The returned node is linked to its parents back to the root.
     public Node autoSolve(Node rootNode)
     {
-        bestBoardSoFar = rootNode;
-        minHeuristicValSoFar = rootNode.getHeuristicValue();
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Node solutionNode = search(rootNode);
+        metrics.searchNanos = System.nanoTime() - start;
 
-        // Add root node to hashmap and PriorityQueue
-        nodeHMap.put(rootNode.getBoard().getBoardAsString(), rootNode);
-        pQueue.add(rootNode);
+        if(solutionNode.getHeuristicValue() == 0)
+        {
+            metrics.solutionLength = 0;
+            for(Node node = solutionNode; node.getParent() != null;
+                node = node.getParent())
+                metrics.solutionLength++;
+        }
+        metrics.peakOpenListSize = (pQueue != null)? pQueue.getPeakSize(): 0;
+        if(fQueue != null)
+            metrics.peakOpenListSize += fQueue.getPeakSize();
+        metrics.peakMemoryBytes = visited.memoryBytes() + arena.memoryBytes()
+                + ((pQueue != null)? pQueue.memoryBytes(): 0)
+                + ((fQueue != null)? fQueue.memoryBytes(): 0);
+        if(isBidirectional())
+        {
+            metrics.peakOpenListSize += backQueue.getPeakSize();
+            metrics.peakMemoryBytes += backVisited.memoryBytes() + backArena.memoryBytes()
+                    + backQueue.memoryBytes();
+        }
+        event.report(rootNode.getBoard().getBoardKey(), metrics);
+        return solutionNode;
+    }
 
-        // Loop through until priority queue is empty.
-        // If empty, then there is no solution, return best possible solution
-        while(!pQueue.isEmpty())
+    // Runs the search of the mode
+    // @return the same as autoSolve
+    private Node search(Node rootNode)
+    {
+        if(mode == SearchMode.TABLE && DistanceTable.isSupported())
+        {
+            Node solutionNode = DistanceTable.getInstance().walk(rootNode);
+            if(solutionNode != null)
+                return solutionNode;
+        }
+
+        deadlineNanos = (deadlineMillis > 0)?
+                System.nanoTime() + deadlineMillis * 1000000: Long.MAX_VALUE;
+        stopRequested = false;
+        Board rootBoard = rootNode.getBoard();
+        int rootH = heuristic.estimate(rootBoard.getBoardKey());
+        int root = arena.add(NodeArena.NOPARENT, NodeArena.NOMOVE, 0, rootH,
+                             rootBoard.getBoardKey(), rootBoard.getBlankPos());
+        bestBoardSoFar = root;
+        minHeuristicValSoFar = rootH;
+        visited.insert(rootBoard.getBoardKey(), root, 0);
+
+        // An impossible board is known before searching: only look for the best board
+        // within the limit instead of trying every reachable board
+        if(!rootBoard.isSolvable())
+        {
+            greedySolve(root, unsolvableSearchLimit);
+            return arena.toNode(bestBoardSoFar);
+        }
+
+        if(isBidirectional())
+            return bidirectionalSolve(root);
+
+        int solution;
+        if(mode == SearchMode.GREEDY)
+            solution = greedySolve(root, Integer.MAX_VALUE);
+        else if(mode == SearchMode.ANYTIME)
+            solution = anytimeSolve(root);
+        else
+            solution = aStarSolve(root);
+
+        // If there is no solution, return best solution possible
+        return arena.toNode((solution != NodeArena.NOPARENT)? solution: bestBoardSoFar);
+    }
+
+    // Best first search on heuristic value only
+    // @param maxBoards: stop once this many boards have been tried
+    // @return arena index of the solution node, or NOPARENT if there is none
+    private int greedySolve(int root, int maxBoards)
+    {
+        if(pQueue == null)
+            pQueue = new IndexHeap(Constants.HMAPSIZE);
+
+        // Add root node to PriorityQueue
+        pQueue.add(root, arena.getH(root));
+
+        // Loop through until priority queue is empty or the limit is reached.
+        // If empty, then there is no solution
+        while(!pQueue.isEmpty() && visited.size() < maxBoards
+              && !isStopped(pQueue.size()))
         {
             // Pop node board with minimum heuristic value and get all possible
             // next/potential board moves.
-            Node boardNode = pQueue.poll();
-            ArrayList<String> nextMoves = boardNode.getBoard().getPotentialBoardMoves();
+            int boardNode = pQueue.poll();
+            int childG = arena.getG(boardNode) + 1;
+            int numNextMoves = Board.generateSuccessors(arena.getBoardKey(boardNode),
+                    arena.getBlankPos(boardNode), arena.getH(boardNode), heuristic,
+                    nextMoves);
+            metrics.nodesExpanded++;
+            metrics.nodesGenerated += numNextMoves;
 
-            // Check if each next move board is unique using hash map
-            // If unique, add node to tree, hash it, add to priority queue
-            // If it has a heuristic value of zero, return it as the solution node
+            // Check if each next move board (up, down, left, right) is unique using
+            // visited table. If unique, add node to tree, visited table, add to
+            // priority queue. If it has a heuristic value of zero, return it as the
+            // solution node
+            for(int x = 0; x < numNextMoves; x++)
+            {
+                int child = addNodeToTreeHashQueue(boardNode, nextMoves.getMove(x),
+                        nextMoves.getBoardKey(x), nextMoves.getBlankPos(x), childG,
+                        nextMoves.getHeuristicValue(x));
+                if(child != NodeArena.NOPARENT && arena.getH(child) == 0)
+                    return child;
+            }
+        }
+        return NodeArena.NOPARENT;
+    }
+
+    // A* search: best first on f = g + h. The heuristic value never overestimates and
+    // changes by 1 per move, so the first goal board polled is reached by a shortest
+    // path and no board has to be expanded twice.
+    // @return arena index of the solution node, or NOPARENT if there is none
+    private int aStarSolve(int root)
+    {
+        fQueue.add(root, arena.getH(root), 0);
+
+        while(!fQueue.isEmpty() && !isStopped(fQueue.size()))
+        {
+            int f = fQueue.peekF();
+            int boardNode = fQueue.poll();
 
-            // Potential Next Move: Up
-            if(nextMoves.get(0) != null)
+            // Skip queue entries left behind when a shorter path to the board was found
+            if(arena.getG(boardNode) + arena.getH(boardNode) != f)
+                continue;
+            if(arena.getH(boardNode) == 0)
+                return boardNode;
+
+            int childG = arena.getG(boardNode) + 1;
+            int numNextMoves = Board.generateSuccessors(arena.getBoardKey(boardNode),
+                    arena.getBlankPos(boardNode), arena.getH(boardNode), heuristic,
+                    nextMoves);
+            metrics.nodesExpanded++;
+            metrics.nodesGenerated += numNextMoves;
+
+            for(int x = 0; x < numNextMoves; x++)
             {
-                if(!nodeHMap.containsKey(nextMoves.get(0)))
+                long boardKey = nextMoves.getBoardKey(x);
+                int h = nextMoves.getHeuristicValue(x);
+                int slot = visited.find(boardKey);
+                if(slot < 0)
                 {
-                    addNodeToTreeHashQueue(boardNode, 0, nextMoves.get(0));
-                    if(boardNode.getUpChild().getHeuristicValue() == 0)
-                        return boardNode.getUpChild();
+                    int child = arena.add(boardNode, nextMoves.getMove(x), childG, h,
+                                          boardKey, nextMoves.getBlankPos(x));
+                    visited.insert(boardKey, child, childG);
+                    fQueue.add(child, childG + h, childG);
+                    updateBestBoard(child, h);
                 }
+                else if(childG < visited.getG(slot))
+                {
+                    // Shorter path to a board still in the queue: re-parent and requeue
+                    int child = visited.getNodeIndex(slot);
+                    arena.setParent(child, boardNode, nextMoves.getMove(x), childG);
+                    visited.update(slot, child, childG);
+                    fQueue.add(child, childG + h, childG);
+                    metrics.nodesReopened++;
+                }
+                else
+                    metrics.duplicatesPruned++;
             }
+        }
+        return NodeArena.NOPARENT;
+    }
+
+    // Anytime weighted A*: best first on g + weight * h. A goal board is taken as soon
+    // as it is generated and only sets an upper bound on the solution length; boards
+    // whose g + h reaches the bound cannot lead to a shorter solution and are skipped,
+    // while any other board reached by a shorter path is queued again. When the queue
+    // is empty the last solution is the shortest.
+    // @return arena index of the shortest solution found, or NOPARENT if there is none
+    private int anytimeSolve(int root)
+    {
+        if(arena.getH(root) == 0)
+            return root;
 
-            // Potential Next Move: Down
-            if(nextMoves.get(1) != null)
+        int solution = NodeArena.NOPARENT;
+        int solutionLength = Integer.MAX_VALUE;
+        fQueue.add(root, anytimePriority(0, arena.getH(root)), 0);
+
+        while(!fQueue.isEmpty() && !isStopped(fQueue.size()))
+        {
+            int priority = fQueue.peekF();
+            int boardNode = fQueue.poll();
+            int g = arena.getG(boardNode);
+            int h = arena.getH(boardNode);
+
+            // Skip queue entries left behind when a shorter path to the board was
+            // found, and boards that cannot lead to a shorter solution
+            if(anytimePriority(g, h) != priority || g + h >= solutionLength)
+                continue;
+
+            int childG = g + 1;
+            int numNextMoves = Board.generateSuccessors(arena.getBoardKey(boardNode),
+                    arena.getBlankPos(boardNode), h, heuristic, nextMoves);
+            metrics.nodesExpanded++;
+            metrics.nodesGenerated += numNextMoves;
+
+            for(int x = 0; x < numNextMoves; x++)
             {
-                if(!nodeHMap.containsKey(nextMoves.get(1)))
+                long boardKey = nextMoves.getBoardKey(x);
+                int childH = nextMoves.getHeuristicValue(x);
+                if(childG + childH >= solutionLength)
+                    continue;
+
+                int slot = visited.find(boardKey);
+                int child;
+                if(slot < 0)
                 {
-                    addNodeToTreeHashQueue(boardNode, 1, nextMoves.get(1));
-                    if(boardNode.getDownChild().getHeuristicValue() == 0)
-                        return boardNode.getDownChild();
+                    child = arena.add(boardNode, nextMoves.getMove(x), childG, childH,
+                                      boardKey, nextMoves.getBlankPos(x));
+                    visited.insert(boardKey, child, childG);
+                    updateBestBoard(child, childH);
+                }
+                else if(childG < visited.getG(slot))
+                {
+                    child = visited.getNodeIndex(slot);
+                    arena.setParent(child, boardNode, nextMoves.getMove(x), childG);
+                    visited.update(slot, child, childG);
+                    metrics.nodesReopened++;
+                }
+                else
+                {
+                    metrics.duplicatesPruned++;
+                    continue;
                 }
-            }
 
-            // Potential Next Move: Left
-            if(nextMoves.get(2) != null)
-            {
-                if(!nodeHMap.containsKey(nextMoves.get(2)))
+                if(childH == 0)
                 {
-                    addNodeToTreeHashQueue(boardNode, 2, nextMoves.get(2));
-                    if(boardNode.getLeftChild().getHeuristicValue() == 0)
-                        return boardNode.getLeftChild();
+                    // Shorter solution: report it, the goal board is not expanded
+                    solution = child;
+                    solutionLength = childG;
+                    reportSolution(solution, false);
                 }
+                else
+                    fQueue.add(child, anytimePriority(childG, childH), childG);
             }
+        }
+
+        // Every board that could lead to a shorter solution has been expanded
+        if(fQueue.isEmpty() && solution != NodeArena.NOPARENT)
+            reportSolution(solution, true);
+        return solution;
+    }
+
+    // @return queue priority of ANYTIME mode, g + weight * h in tenths of a move
+    private int anytimePriority(int g, int h)
+    {
+        return 10 * g + (int) Math.round(10 * weight) * h;
+    }
+
+    // Tells the solution listener, if any, about a solution
+    private void reportSolution(int solution, boolean isShortest)
+    {
+        if(solutionListener == null)
+            return;
+        Stack<Node> pathStack = new Stack<Node>();
+        for(Node node = arena.toNode(solution); node.getParent() != null;
+            node = node.getParent())
+            pathStack.push(node);
+        solutionListener.solutionFound(pathStack, isShortest);
+    }
+
+    // Bidirectional A* from the root board and from the goal board. The backward side
+    // estimates the distance to the root board by the city-block distance of every tile
+    // from its root position. The side with fewer boards waiting is expanded next.
+    // @return the solution node linked to its parents back to the root, or the best
+    //         board if there is no solution
+    private Node bidirectionalSolve(int root)
+    {
+        long rootKey = arena.getBoardKey(root);
+        long goalKey = Board.goalBoardKey();
+        if(rootKey == goalKey)
+            return arena.toNode(root);
+
+        Heuristic backHeuristic = new ManhattanHeuristic(rootKey);
+        int goalH = backHeuristic.estimate(goalKey);
+        int goal = backArena.add(NodeArena.NOPARENT, NodeArena.NOMOVE, 0, goalH, goalKey,
+                                 Board.findBlankPos(goalKey));
+        backVisited.insert(goalKey, goal, 0);
+
+        int rootPriority = bidirectionalPriority(0, arena.getH(root), backHeuristic,
+                                                 rootKey);
+        fQueue.add(root, rootPriority, 0);
+        backQueue.add(goal, bidirectionalPriority(0, goalH, heuristic, goalKey), 0);
+        bestMeetingLength = Integer.MAX_VALUE;
+        meetingNode = NodeArena.NOPARENT;
+        backMeetingNode = NodeArena.NOPARENT;
+
+        while(!fQueue.isEmpty() && !backQueue.isEmpty() && !isShortestMeeting()
+              && !isStopped(fQueue.size() + backQueue.size()))
+        {
+            if(fQueue.size() <= backQueue.size())
+                expandBidirectional(true, arena, visited, fQueue, heuristic,
+                                    backHeuristic, backVisited);
+            else
+                expandBidirectional(false, backArena, backVisited, backQueue,
+                                    backHeuristic, heuristic, visited);
+        }
+
+        if(meetingNode == NodeArena.NOPARENT)
+            return arena.toNode(bestBoardSoFar);
 
-            // Potential Next Move: Right
-            if(nextMoves.get(3) != null)
+        // Forward path up to the meeting board, then the backward path down to the goal
+        Node solutionNode = arena.toNode(meetingNode);
+        for(int x = backArena.getParent(backMeetingNode); x != NodeArena.NOPARENT;
+            x = backArena.getParent(x))
+            solutionNode = new Node(new Board(backArena.getBoardKey(x)), solutionNode);
+        return solutionNode;
+    }
+
+    // Expands the next board of one side of the bidirectional search and records the
+    // shortest path through a board the other side has already reached
+    // @param forward: true for the side searching from the root board
+    // @param otherHeuristic: the other side's heuristic, estimating the distance back
+    //        to this side's start board
+    private void expandBidirectional(boolean forward, NodeArena sideArena,
+                                     VisitedTable sideVisited, BucketQueue sideQueue,
+                                     Heuristic sideHeuristic, Heuristic otherHeuristic,
+                                     VisitedTable otherVisited)
+    {
+        int priority = sideQueue.peekF();
+        int boardNode = sideQueue.poll();
+        long boardKey = sideArena.getBoardKey(boardNode);
+        int g = sideArena.getG(boardNode);
+        int h = sideArena.getH(boardNode);
+
+        // Skip queue entries left behind when a shorter path to the board was found
+        if(bidirectionalPriority(g, h, otherHeuristic, boardKey) != priority)
+            return;
+
+        int childG = g + 1;
+        int numNextMoves = Board.generateSuccessors(boardKey,
+                sideArena.getBlankPos(boardNode), h, sideHeuristic, nextMoves);
+        metrics.nodesExpanded++;
+        metrics.nodesGenerated += numNextMoves;
+
+        for(int x = 0; x < numNextMoves; x++)
+        {
+            long childKey = nextMoves.getBoardKey(x);
+            int childH = nextMoves.getHeuristicValue(x);
+            int slot = sideVisited.find(childKey);
+            int child;
+            if(slot < 0)
             {
-                if(!nodeHMap.containsKey(nextMoves.get(3)))
-                {
-                    addNodeToTreeHashQueue(boardNode, 3, nextMoves.get(3));
-                    if(boardNode.getRightChild().getHeuristicValue() == 0)
-                        return boardNode.getRightChild();
-                }
+                child = sideArena.add(boardNode, nextMoves.getMove(x), childG, childH,
+                                      childKey, nextMoves.getBlankPos(x));
+                sideVisited.insert(childKey, child, childG);
+                if(forward)
+                    updateBestBoard(child, childH);
+            }
+            else if(childG < sideVisited.getG(slot))
+            {
+                // Shorter path to a board already reached: re-parent and requeue
+                child = sideVisited.getNodeIndex(slot);
+                sideArena.setParent(child, boardNode, nextMoves.getMove(x), childG);
+                sideVisited.update(slot, child, childG);
+                metrics.nodesReopened++;
+            }
+            else
+            {
+                metrics.duplicatesPruned++;
+                continue;
+            }
+
+            sideQueue.add(child, bidirectionalPriority(childG, childH, otherHeuristic,
+                                                        childKey), childG);
+
+            // Meeting check: has the other side reached this board?
+            int otherSlot = otherVisited.find(childKey);
+            if(otherSlot < 0)
+                continue;
+            int meetingLength = childG + otherVisited.getG(otherSlot);
+            if(meetingLength < bestMeetingLength)
+            {
+                bestMeetingLength = meetingLength;
+                meetingNode = forward? child: otherVisited.getNodeIndex(otherSlot);
+                backMeetingNode = forward? otherVisited.getNodeIndex(otherSlot): child;
             }
         }
+    }
 
-        // Priority Queue is empty - there is no solution, return best solution possible
-        return bestBoardSoFar;
+    // @return queue priority of a board: f = g + h, or in BAE mode
+    //         g + h + (g - estimate back to the side's start), which is never negative
+    private int bidirectionalPriority(int g, int h, Heuristic otherHeuristic,
+                                      long boardKey)
+    {
+        if(mode == SearchMode.BAE)
+            return 2 * g + h - otherHeuristic.estimate(boardKey);
+        return g + h;
     }
 
-    // Adds a next move/child node to the Search Tree, HashMap, and Priority Queue
+    // Every path not found yet goes through a waiting board of each side, so it is at
+    // least as long as the larger of the two lowest f values. In BAE mode it is at least
+    // half the sum of the two lowest priorities.
+    // @return true if no path shorter than the best meeting can be found
+    private boolean isShortestMeeting()
+    {
+        if(bestMeetingLength == Integer.MAX_VALUE)
+            return false;
+        int forwardBound = fQueue.peekF();
+        int backwardBound = backQueue.peekF();
+        if(mode == SearchMode.BAE)
+            return 2 * bestMeetingLength <= forwardBound + backwardBound;
+        return bestMeetingLength <= Math.max(forwardBound, backwardBound);
+    }
+
+    // Counts an expansion and every PROGRESSINTERVAL expansions reports the progress
+    // and checks whether the thread was interrupted or the deadline passed
+    // @return true if the search must stop
+    private boolean isStopped(int queueSize)
+    {
+        if(stopRequested)
+            return true;
+        if((++numExpansions & (Constants.PROGRESSINTERVAL - 1)) != 0)
+            return false;
+        if(progressListener != null)
+            progressListener.progress(getNumMovesTried(), queueSize,
+                                      minHeuristicValSoFar);
+        return Thread.currentThread().isInterrupted()
+               || System.nanoTime() >= deadlineNanos;
+    }
+
+    // Adds a next move/child node to the Search Tree, VisitedTable, and Priority Queue
     // Also updates best board and heuristic value so far
-    private void addNodeToTreeHashQueue(Node parent, int move, String boardAsString)
-    {
-        Node child = new Node(boardAsString);
-        if(move == 0)
-            parent.setUpChild(child);
-        else if(move == 1)
-            parent.setDownChild(child);
-        else if(move == 2)
-            parent.setLeftChild(child);
-        else
-            parent.setRightChild(child);
-        nodeHMap.put(boardAsString, child);
-        pQueue.add(child);
+    // @return arena index of the child, or NOPARENT if the board was already visited
+    private int addNodeToTreeHashQueue(int parent, int move, long boardKey, int blankPos,
+                                       int g, int h)
+    {
+        int slot = visited.insert(boardKey, arena.size(), g);
+        if(slot < 0)
+        {
+            metrics.duplicatesPruned++;
+            return NodeArena.NOPARENT;
+        }
 
-        if(child.getHeuristicValue() < minHeuristicValSoFar)
+        int child = arena.add(parent, move, g, h, boardKey, blankPos);
+        pQueue.add(child, h);
+        updateBestBoard(child, h);
+        return child;
+    }
+
+    // Updates best board and heuristic value so far
+    private void updateBestBoard(int node, int h)
+    {
+        if(h < minHeuristicValSoFar)
         {
-            minHeuristicValSoFar = child.getHeuristicValue();
-            bestBoardSoFar = child;
+            minHeuristicValSoFar = h;
+            bestBoardSoFar = node;
         }
     }
 
+    // Solves the board and creates the solution path (or the path to the best board if
+    // the board is imposssible to solve)
+    @Override
+    public Stack<Node> solve(Node rootNode)
+    {
+        return createSolutionPath(autoSolve(rootNode));
+    }
+
     // TO DO
     public Stack<Node> createSolutionPath(Node currNode)
     {
+        long start = System.nanoTime();
         while(currNode.getParent() != null)
         {
             solutionPathStack.push(currNode);
             currNode = currNode.getParent();
             numMoves++;
         }
+        metrics.pathNanos += System.nanoTime() - start;
         return solutionPathStack;
     }
 
@@ -155,4 +671,3 @@ public class SearchTree
     }
 
 }
-
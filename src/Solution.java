@@ -0,0 +1,254 @@
+/*
+Class: Solution
+Compact solution: the packed start board and one 2-bit move per step (a direction of
+Constants.MOVELETTERS), 32 moves to a long. A path of 80 moves takes 24 bytes of moves
+instead of 80 Nodes, each with a Board, so a Solution can be kept, queued or cached
+while the nodes and the search that produced them are collected.
+
+The boards of the path are not stored. Iterating a Solution replays the moves and
+builds each board after a move on demand (the start board is not included, as in the
+solution paths of Solver), and toString() gives the moves as text, e.g. "ULDR", or "-"
+for no moves.
+
+A Solution need not end at the goal board: the path to the best board of an impossible
+board is kept the same way (see isSolved()). Moves are replayed on the puzzle that was
+active when the Solution was made.
+*/
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Stack;
+
+public final class Solution implements Iterable<Board>
+{
+    static final int MOVEBITS = 2;
+    static final int MOVESPERWORD = Long.SIZE / MOVEBITS;
+    private static final long MOVEMASK = (1L << MOVEBITS) - 1;
+
+    private PuzzleSpec  puzzle;         // Of the boards
+    private long        startKey;
+    private long[]      moves;          // Move x in bits 2 * (x % 32) of word x / 32
+    private int         length;         // Number of moves
+
+    // CONSTRUCTOR
+    // @param moves: wordsFor(length) longs of packed moves, kept (not copied)
+    Solution(long startKey, long[] moves, int length)
+    {
+        if(length < 0 || moves.length != wordsFor(length))
+            throw new IllegalArgumentException("Bad solution length: " + length);
+        puzzle = Constants.puzzle;
+        this.startKey = startKey;
+        this.moves = moves;
+        this.length = length;
+    }
+
+    // Solves a board and keeps only the compact solution; the solver's nodes and
+    // path can be collected as soon as this returns
+    // @return solution, or path to the best board if the board is impossible to solve
+    public static Solution solve(Solver solver, Node rootNode)
+    {
+        return fromPath(rootNode.getBoard(), solver.solve(rootNode));
+    }
+
+    // @param solutionPathStack: path in the shape of SearchTree.createSolutionPath
+    // @return solution of the path from the root board
+    public static Solution fromPath(Board rootBoard, Stack<Node> solutionPathStack)
+    {
+        int length = solutionPathStack.size();
+        long[] moves = new long[wordsFor(length)];
+        int blankPos = rootBoard.getBlankPos();
+        for(int x = 0; x < length; x++)
+        {
+            // The tile that moved came from where the blank spot is now
+            int nextBlankPos =
+                    solutionPathStack.get(length - 1 - x).getBoard().getBlankPos();
+            setMove(moves, x, moveBetween(blankPos, nextBlankPos));
+            blankPos = nextBlankPos;
+        }
+        return new Solution(rootBoard.getBoardKey(), moves, length);
+    }
+
+    // @param moveString: letters of Constants.MOVELETTERS, first move first ("-" or
+    //        "" for none)
+    // @return solution of the moves from the start board
+    public static Solution parse(long startKey, String moveString)
+    {
+        if(moveString.equals("-"))
+            moveString = "";
+        int length = moveString.length();
+        long[] moves = new long[wordsFor(length)];
+        int blankPos = Board.findBlankPos(startKey);
+        for(int x = 0; x < length; x++)
+        {
+            int move = Constants.MOVELETTERS.indexOf(moveString.charAt(x));
+            if(move < 0)
+                throw new IllegalArgumentException("Not a move: " +
+                        moveString.charAt(x));
+            // Checks the move is on the board
+            blankPos = tilePosition(Constants.puzzle, blankPos, move);
+            setMove(moves, x, move);
+        }
+        return new Solution(startKey, moves, length);
+    }
+
+    // @return number of longs needed for the given number of moves
+    static int wordsFor(int length)
+    {
+        return (length + MOVESPERWORD - 1) / MOVESPERWORD;
+    }
+
+    public long getStartKey()
+    {
+        return startKey;
+    }
+
+    // @return number of moves
+    public int getLength()
+    {
+        return length;
+    }
+
+    // @return move (index of Constants.MOVELETTERS) of the given step, 0 first
+    public int getMove(int x)
+    {
+        if(x < 0 || x >= length)
+            throw new IndexOutOfBoundsException("Move " + x + " of " + length);
+        return (int) (moves[x / MOVESPERWORD] >>> (MOVEBITS * (x % MOVESPERWORD)))
+               & (int) MOVEMASK;
+    }
+
+    // @return packed moves; must not be modified
+    long[] getMoveWords()
+    {
+        return moves;
+    }
+
+    // @return packed board after the last move, replaying every move
+    public long getEndKey()
+    {
+        long boardKey = startKey;
+        int blankPos = Board.findBlankPos(boardKey);
+        for(int x = 0; x < length; x++)
+        {
+            int tileToMovePos = tilePosition(puzzle, blankPos, getMove(x));
+            boardKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+            blankPos = tileToMovePos;
+        }
+        return boardKey;
+    }
+
+    // @return true if the moves end at the goal board
+    public boolean isSolved()
+    {
+        return getEndKey() == puzzle.getGoalKey();
+    }
+
+    // @return boards after each move, first move first, each built when it is reached
+    @Override
+    public Iterator<Board> iterator()
+    {
+        return new Iterator<Board>()
+        {
+            private long    boardKey = startKey;
+            private int     blankPos = Board.findBlankPos(startKey);
+            private int     next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return next < length;
+            }
+
+            @Override
+            public Board next()
+            {
+                if(next >= length)
+                    throw new NoSuchElementException();
+                int tileToMovePos = tilePosition(puzzle, blankPos, getMove(next++));
+                boardKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+                blankPos = tileToMovePos;
+                return new Board(boardKey);
+            }
+        };
+    }
+
+    // @return path in the shape of SearchTree.createSolutionPath, for the Solver
+    //         interface and playback that pops nodes
+    public Stack<Node> toPath()
+    {
+        Stack<Node> solutionPathStack = new Stack<Node>();
+        Node[] path = new Node[length];
+        Node node = new Node(new Board(startKey));
+        int x = 0;
+        for(Board board: this)
+        {
+            node = new Node(board, node);
+            path[x++] = node;
+        }
+        for(x = length - 1; x >= 0; x--)
+            solutionPathStack.push(path[x]);
+        return solutionPathStack;
+    }
+
+    // @return the letters of the moves, first move first, or "-" for no moves
+    @Override
+    public String toString()
+    {
+        if(length == 0)
+            return "-";
+        StringBuilder sb = new StringBuilder(length);
+        for(int x = 0; x < length; x++)
+            sb.append(Constants.MOVELETTERS.charAt(getMove(x)));
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if(!(other instanceof Solution))
+            return false;
+        Solution solution = (Solution) other;
+        return startKey == solution.startKey && length == solution.length &&
+               Arrays.equals(moves, solution.moves);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(startKey) * 31 + Arrays.hashCode(moves);
+    }
+
+    private static void setMove(long[] moves, int x, int move)
+    {
+        moves[x / MOVESPERWORD] |= ((long) move) << (MOVEBITS * (x % MOVESPERWORD));
+    }
+
+    // @return position of the tile that slides into the blank spot with the given move
+    private static int tilePosition(PuzzleSpec puzzle, int blankPos, int move)
+    {
+        int[] positions = puzzle.getSlidePositions(blankPos);
+        int[] slideMoves = puzzle.getSlideMoves(blankPos);
+        for(int x = 0; x < positions.length; x++)
+        {
+            if(slideMoves[x] == move)
+                return positions[x];
+        }
+        throw new IllegalArgumentException("Move " + Constants.MOVELETTERS.charAt(move) +
+                " is off the board from position " + blankPos);
+    }
+
+    // @return move that slides the tile at nextBlankPos into the blank spot at blankPos
+    private static int moveBetween(int blankPos, int nextBlankPos)
+    {
+        int[] positions = Constants.puzzle.getSlidePositions(blankPos);
+        int[] slideMoves = Constants.puzzle.getSlideMoves(blankPos);
+        for(int x = 0; x < positions.length; x++)
+        {
+            if(positions[x] == nextBlankPos)
+                return slideMoves[x];
+        }
+        throw new IllegalArgumentException("Not a move: " + blankPos + " to " +
+                nextBlankPos);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+Class: SolutionArchive
+Read only view of a solution archive file: records of a packed board key and its
+Solution's moves (see Solution), written by SolutionArchiveWriter. The file is memory
+mapped, so an archive of millions of solutions opens without reading its records and
+a point query touches only the pages of the index it searches and of the one record it
+returns; nothing of the archive is kept on the heap.
+
+File layout (big endian):
+
+    header      int magic "TSA1", int version, int puzzle width, int 0
+    batch       int magic "TSAB", int number of records n, long bytes of the batch
+                n index entries, sorted by board key: long board key, int offset of
+                    the record from the start of the batch
+                n records: short number of moves m, (m + 31) / 32 longs of moves
+    batch ...
+
+Every flush of a writer appends one batch and nothing is ever rewritten. A lookup
+binary searches the index of each batch, newest batch first, so a board written again
+later answers with its latest solution. A batch cut short by a crash is ignored here
+and dropped by the next writer. Many small batches make lookups slower; write big
+batches (SolutionArchiveWriter's batch size).
+
+Lookups only read the mapped buffers, so one archive may be shared by any number of
+threads.
+
+    java SolutionArchive [-width N] -write archive [-batch N] [file]
+
+appends the solved boards of BatchSolver result lines read from the file or standard
+input, and
+
+    java SolutionArchive [-width N] archive board ...
+
+prints the archived solution of each board as "board moves length" (moves "?" and
+length -1 if the board is not in the archive).
+*/
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SolutionArchive implements Closeable
+{
+    static final int MAGIC = 0x54534131;            // "TSA1"
+    static final int VERSION = 1;
+    static final int BATCHMAGIC = 0x54534142;       // "TSAB"
+    static final int HEADERBYTES = 16;
+    static final int BATCHHEADERBYTES = 16;
+    static final int INDEXENTRYBYTES = 12;          // Board key and record offset
+
+    private FileChannel         channel;
+    private MappedByteBuffer[]  batches;            // Oldest first
+    private int[]               batchSizes;         // Records of each batch
+    private long                numRecords;         // Of all batches, with repeats
+
+    // CONSTRUCTOR Maps every complete batch of an archive of the active puzzle
+    // @throws IOException if the file is not an archive of the active puzzle
+    public SolutionArchive(Path file) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try
+        {
+            long end = completeLength(channel);
+            List<MappedByteBuffer> mapped = new ArrayList<MappedByteBuffer>();
+            List<Integer> sizes = new ArrayList<Integer>();
+            long pos = HEADERBYTES;
+            ByteBuffer header = ByteBuffer.allocate(BATCHHEADERBYTES);
+            while(pos < end)
+            {
+                readFully(channel, header, pos);
+                int numBatchRecords = header.getInt(4);
+                long batchBytes = header.getLong(8);
+                mapped.add(channel.map(FileChannel.MapMode.READ_ONLY, pos, batchBytes));
+                sizes.add(numBatchRecords);
+                numRecords += numBatchRecords;
+                pos += batchBytes;
+            }
+
+            batches = mapped.toArray(new MappedByteBuffer[mapped.size()]);
+            batchSizes = new int[sizes.size()];
+            for(int x = 0; x < batchSizes.length; x++)
+                batchSizes[x] = sizes.get(x);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // @return number of records in the archive, counting a board written twice twice
+    public long getNumRecords()
+    {
+        return numRecords;
+    }
+
+    public int getNumBatches()
+    {
+        return batches.length;
+    }
+
+    // @return archived solution of a board, or null if it is not in the archive
+    public Solution get(long boardKey)
+    {
+        for(int b = batches.length - 1; b >= 0; b--)
+        {
+            ByteBuffer batch = batches[b];
+            int index = find(batch, batchSizes[b], boardKey);
+            if(index < 0)
+                continue;
+
+            int offset = batch.getInt(BATCHHEADERBYTES + index * INDEXENTRYBYTES + 8);
+            int length = batch.getShort(offset) & 0xFFFF;
+            long[] moves = new long[Solution.wordsFor(length)];
+            for(int x = 0; x < moves.length; x++)
+                moves[x] = batch.getLong(offset + 2 + x * Long.BYTES);
+            return new Solution(boardKey, moves, length);
+        }
+        return null;
+    }
+
+    public boolean contains(long boardKey)
+    {
+        for(int b = batches.length - 1; b >= 0; b--)
+        {
+            if(find(batches[b], batchSizes[b], boardKey) >= 0)
+                return true;
+        }
+        return false;
+    }
+
+    // Unmapping is left to the garbage collector; the file stays mapped until the
+    // buffers are collected
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+        batches = new MappedByteBuffer[0];
+        batchSizes = new int[0];
+    }
+
+    // Binary search of a batch's index
+    // @return index entry of the board, or -1 if it is not in the batch
+    private static int find(ByteBuffer batch, int numBatchRecords, long boardKey)
+    {
+        int low = 0;
+        int high = numBatchRecords - 1;
+        while(low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            long key = batch.getLong(BATCHHEADERBYTES + middle * INDEXENTRYBYTES);
+            int cmp = Long.compare(key, boardKey);
+            if(cmp < 0)
+                low = middle + 1;
+            else if(cmp > 0)
+                high = middle - 1;
+            else
+                return middle;
+        }
+        return -1;
+    }
+
+    // Checks the file header and walks the batch headers
+    // @return bytes of the header and the complete batches; a batch cut short at the
+    //         end of the file is not counted
+    // @throws IOException if the file is not an archive of the active puzzle
+    static long completeLength(FileChannel channel) throws IOException
+    {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADERBYTES);
+        if(size < HEADERBYTES)
+            throw new IOException("Not a solution archive: too short");
+        readFully(channel, header, 0);
+        if(header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+            throw new IOException("Not a solution archive");
+        if(header.getInt(8) != Constants.puzzle.getWidth())
+            throw new IOException("Solution archive of " + header.getInt(8) + "X" +
+                    header.getInt(8) + " boards, not " + Constants.numRows + "X" +
+                    Constants.numCols);
+
+        long pos = HEADERBYTES;
+        ByteBuffer batchHeader = ByteBuffer.allocate(BATCHHEADERBYTES);
+        while(pos + BATCHHEADERBYTES <= size)
+        {
+            readFully(channel, batchHeader, pos);
+            long batchBytes = batchHeader.getLong(8);
+            if(batchHeader.getInt(0) != BATCHMAGIC || batchHeader.getInt(4) < 0 ||
+               batchBytes < BATCHHEADERBYTES || batchBytes > Integer.MAX_VALUE ||
+               pos + batchBytes > size)
+                break;
+            pos += batchBytes;
+        }
+        return pos;
+    }
+
+    // Reads bytes from the given file position until the buffer is full
+    static void readFully(FileChannel channel, ByteBuffer buffer, long pos)
+            throws IOException
+    {
+        buffer.clear();
+        while(buffer.hasRemaining())
+        {
+            int numRead = channel.read(buffer, pos + buffer.position());
+            if(numRead < 0)
+                throw new IOException("Solution archive cut short at " + pos);
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        boolean write = false;
+        int batchSize = SolutionArchiveWriter.DEFAULTBATCHSIZE;
+        List<String> names = new ArrayList<String>();
+        for(int x = 0; x < args.length; x++)
+        {
+            if(args[x].equals("-width") && x + 1 < args.length)
+                Constants.setPuzzleWidth(Integer.parseInt(args[++x]));
+            else if(args[x].equals("-write"))
+                write = true;
+            else if(args[x].equals("-batch") && x + 1 < args.length)
+                batchSize = Integer.parseInt(args[++x]);
+            else if(args[x].startsWith("-"))
+            {
+                names.clear();
+                break;
+            }
+            else
+                names.add(args[x]);
+        }
+        if(names.isEmpty() || (write && names.size() > 2))
+        {
+            System.err.println("Usage: java SolutionArchive [-width N] -write archive " +
+                    "[-batch N] [file]");
+            System.err.println("       java SolutionArchive [-width N] archive " +
+                    "board ...");
+            return;
+        }
+
+        Path file = Paths.get(names.get(0));
+        if(write)
+        {
+            BufferedReader in = (names.size() == 2)?
+                    new BufferedReader(new FileReader(names.get(1))):
+                    new BufferedReader(new InputStreamReader(System.in));
+            long numWritten = 0;
+            try(SolutionArchiveWriter writer = new SolutionArchiveWriter(file, batchSize))
+            {
+                // BatchSolver result lines: board moves length ...
+                String line;
+                while((line = in.readLine()) != null)
+                {
+                    String[] fields = line.trim().split("\\s+");
+                    if(fields.length < 3 || fields[2].equals("-1") ||
+                       !BatchSolver.isValidBoard(fields[0]))
+                        continue;
+                    long boardKey = new Board(fields[0]).getBoardKey();
+                    writer.add(Solution.parse(boardKey, fields[1]));
+                    numWritten++;
+                }
+            }
+            in.close();
+            System.err.println("Wrote " + numWritten + " solutions to " + file + ".");
+            return;
+        }
+
+        try(SolutionArchive archive = new SolutionArchive(file))
+        {
+            for(int x = 1; x < names.size(); x++)
+            {
+                String boardString = names.get(x);
+                Solution solution = BatchSolver.isValidBoard(boardString)?
+                        archive.get(new Board(boardString).getBoardKey()): null;
+                System.out.println(boardString + " " +
+                        ((solution == null)? "? -1": solution + " " +
+                        solution.getLength()));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+Class: SolutionArchiveWriter
+Appends solutions to a solution archive (see SolutionArchive for the file layout).
+Solutions are collected in memory and written as one batch, sorted by board key, when
+the batch size is reached, on flush() and on close(); records already in the file are
+never rewritten. If a board is added twice to one batch the shorter solution is kept.
+
+Every batch is forced to the disk before the next one is started, and a batch cut
+short by a crash is dropped when the archive is opened for writing again, so the file
+always holds whole batches. Only one writer may append to an archive at a time;
+readers opened before a batch was written do not see it.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+public class SolutionArchiveWriter implements Closeable
+{
+    static final int DEFAULTBATCHSIZE = 1 << 20;
+    private static final int MAXBATCHBYTES = Integer.MAX_VALUE;
+
+    private FileChannel     channel;
+    private long            end;                // Where the next batch is written
+    private int             batchSize;          // Most solutions per batch
+    private Solution[]      pending;
+    private int             numPending;
+    private long            pendingBytes;       // Batch bytes of the pending solutions
+
+    // CONSTRUCTOR Creates the archive, or opens it to append to it
+    // @throws IOException if the file exists and is not an archive of the active puzzle
+    public SolutionArchiveWriter(Path file, int batchSize) throws IOException
+    {
+        if(batchSize < 1)
+            throw new IllegalArgumentException("Bad batch size: " + batchSize);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            if(channel.size() == 0)
+            {
+                ByteBuffer header = ByteBuffer.allocate(SolutionArchive.HEADERBYTES);
+                header.putInt(SolutionArchive.MAGIC).putInt(SolutionArchive.VERSION)
+                      .putInt(Constants.puzzle.getWidth()).putInt(0);
+                header.flip();
+                writeFully(header, 0);
+                end = SolutionArchive.HEADERBYTES;
+            }
+            else
+            {
+                // Drop a batch cut short by a crash
+                end = SolutionArchive.completeLength(channel);
+                channel.truncate(end);
+            }
+        }
+        catch(IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+        this.batchSize = batchSize;
+        pending = new Solution[Math.min(batchSize, 1024)];
+        numPending = 0;
+        pendingBytes = SolutionArchive.BATCHHEADERBYTES;
+    }
+
+    // CHAINED CONSTRUCTOR Default batch size
+    public SolutionArchiveWriter(Path file) throws IOException
+    {
+        this(file, DEFAULTBATCHSIZE);
+    }
+
+    // Adds a solution to the current batch, and writes the batch if it is full
+    public void add(Solution solution) throws IOException
+    {
+        long bytes = SolutionArchive.INDEXENTRYBYTES + recordBytes(solution);
+        if(numPending == batchSize || pendingBytes + bytes > MAXBATCHBYTES)
+            flush();
+        if(numPending == pending.length)
+            pending = Arrays.copyOf(pending, (int) Math.min(batchSize, 2L * numPending));
+        pending[numPending++] = solution;
+        pendingBytes += bytes;
+    }
+
+    // Writes the current batch, if any, and forces it to the disk
+    public void flush() throws IOException
+    {
+        if(numPending == 0)
+            return;
+
+        // Sort by board key, keeping the shortest solution of a board first
+        Arrays.sort(pending, 0, numPending, new Comparator<Solution>()
+        {
+            @Override
+            public int compare(Solution first, Solution second)
+            {
+                int cmp = Long.compare(first.getStartKey(), second.getStartKey());
+                return (cmp != 0)? cmp:
+                        Integer.compare(first.getLength(), second.getLength());
+            }
+        });
+        int numRecords = 0;
+        for(int x = 0; x < numPending; x++)
+        {
+            if(numRecords > 0 &&
+               pending[numRecords - 1].getStartKey() == pending[x].getStartKey())
+                pendingBytes -= SolutionArchive.INDEXENTRYBYTES + recordBytes(pending[x]);
+            else
+                pending[numRecords++] = pending[x];
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate((int) pendingBytes);
+        batch.putInt(SolutionArchive.BATCHMAGIC).putInt(numRecords)
+             .putLong(pendingBytes);
+        int offset = SolutionArchive.BATCHHEADERBYTES +
+                     numRecords * SolutionArchive.INDEXENTRYBYTES;
+        for(int x = 0; x < numRecords; x++)
+        {
+            batch.putLong(pending[x].getStartKey()).putInt(offset);
+            offset += recordBytes(pending[x]);
+        }
+        for(int x = 0; x < numRecords; x++)
+        {
+            batch.putShort((short) pending[x].getLength());
+            for(long word: pending[x].getMoveWords())
+                batch.putLong(word);
+        }
+        batch.flip();
+        writeFully(batch, end);
+        channel.force(false);
+        end += pendingBytes;
+
+        Arrays.fill(pending, 0, numPending, null);
+        numPending = 0;
+        pendingBytes = SolutionArchive.BATCHHEADERBYTES;
+    }
+
+    // Writes the current batch and closes the file
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            flush();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    // @return bytes of a solution's record, not counting its index entry
+    private static int recordBytes(Solution solution)
+    {
+        if(solution.getLength() > 0xFFFF)
+            throw new IllegalArgumentException("Solution too long for an archive: " +
+                    solution.getLength());
+        return 2 + solution.getMoveWords().length * Long.BYTES;
+    }
+
+    private void writeFully(ByteBuffer buffer, long pos) throws IOException
+    {
+        while(buffer.hasRemaining())
+            pos += channel.write(buffer, pos);
+    }
+}
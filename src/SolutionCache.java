@@ -0,0 +1,173 @@
+/*
+Class: SolutionCache
+Solutions already found, kept across solves so the same board (or any board on a path
+solved before) is answered without searching. For every board of a solved path the
+cache keeps the first move of the rest of the path and the number of moves left, so
+every suffix of a path is cached by the one put() and a path is rebuilt by replaying
+the moves from the board. getSolution() rebuilds it as a compact Solution without
+building its boards. A board keeps the shortest rest of a path put for it.
+
+The boards after it are not pinned to that path: a later put() may give one of them a
+shorter rest, and an evicted board may come back with a longer one. So the moves are
+followed until a board with no moves left is reached, and the number of moves left
+of the first board is only a hint of the length. If a board on the way is missing, or
+the moves run longer than the cache has boards (a loop), the lookup is a miss.
+
+The cache holds at most a fixed number of boards (about 90 bytes each) and evicts the
+least recently used board first. Every access is synchronized so solvers on several
+threads may share one cache.
+*/
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Stack;
+
+public class SolutionCache
+{
+    private static final int MOVEBITS = 2;
+    private static final int MOVEMASK = (1 << MOVEBITS) - 1;
+
+    private LinkedHashMap<Long, Integer>    entries;    // Board -> moves left << 2 | move
+    private long                            hits;
+    private long                            misses;
+
+    // CONSTRUCTOR
+    // @param maxBoards: most boards kept before the least recently used are evicted
+    public SolutionCache(final int maxBoards)
+    {
+        entries = new LinkedHashMap<Long, Integer>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest)
+            {
+                return size() > maxBoards;
+            }
+        };
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+    }
+
+    // Rebuilds the cached solution path of a board
+    // @return solution path in the shape of SearchTree.createSolutionPath, or null if
+    //         the board (or a board on its path) is not cached
+    public Stack<Node> getSolutionPath(Board rootBoard)
+    {
+        Solution solution = getSolution(rootBoard);
+        return (solution == null)? null: solution.toPath();
+    }
+
+    // Rebuilds the cached solution of a board without building its boards
+    // @return solution, or null if the board (or a board on its path) is not cached
+    public synchronized Solution getSolution(Board rootBoard)
+    {
+        long boardKey = rootBoard.getBoardKey();
+        Integer entry = entries.get(boardKey);
+        if(entry == null)
+        {
+            misses++;
+            return null;
+        }
+
+        // Follow the moves from the root down to the goal board (no moves left)
+        long[] moves = new long[Solution.wordsFor(entry >>> MOVEBITS)];
+        int length = 0;
+        int blankPos = rootBoard.getBlankPos();
+        while((entry >>> MOVEBITS) > 0)
+        {
+            // A path longer than the cache must visit a board twice
+            if(length == entries.size())
+            {
+                misses++;
+                return null;
+            }
+            if(length == moves.length * Solution.MOVESPERWORD)
+                moves = Arrays.copyOf(moves, moves.length + 1);
+
+            int move = entry & MOVEMASK;
+            moves[length / Solution.MOVESPERWORD] |=
+                    ((long) move) << (MOVEBITS * (length % Solution.MOVESPERWORD));
+            length++;
+            int tileToMovePos = tilePosition(blankPos, move);
+            boardKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+            blankPos = tileToMovePos;
+
+            entry = entries.get(boardKey);
+            if(entry == null)       // Evicted: treat the whole path as not cached
+            {
+                misses++;
+                return null;
+            }
+        }
+        hits++;
+        if(moves.length != Solution.wordsFor(length))
+            moves = Arrays.copyOf(moves, Solution.wordsFor(length));
+        return new Solution(rootBoard.getBoardKey(), moves, length);
+    }
+
+    // Adds every board of a solution path with the rest of the path from it
+    // @param solutionPathStack: path in the shape of SearchTree.createSolutionPath,
+    //        ending at the goal board
+    public void put(Board rootBoard, Stack<Node> solutionPathStack)
+    {
+        put(Solution.fromPath(rootBoard, solutionPathStack));
+    }
+
+    // Adds every board of a solution with the rest of the solution from it
+    // @param solution: solution ending at the goal board
+    public synchronized void put(Solution solution)
+    {
+        int numMoves = solution.getLength();
+        long boardKey = solution.getStartKey();
+        int blankPos = Board.findBlankPos(boardKey);
+        for(int x = 0; x < numMoves; x++)
+        {
+            int move = solution.getMove(x);
+            putBoard(boardKey, numMoves - x, move);
+            int tileToMovePos = tilePosition(blankPos, move);
+            boardKey = Board.slideTile(boardKey, blankPos, tileToMovePos);
+            blankPos = tileToMovePos;
+        }
+        putBoard(boardKey, 0, 0);           // The goal board
+    }
+
+    // Keeps the shorter of the cached and the new rest of a path
+    private void putBoard(long boardKey, int movesLeft, int move)
+    {
+        Integer entry = entries.get(boardKey);
+        if(entry == null || (entry >>> MOVEBITS) > movesLeft)
+            entries.put(boardKey, (movesLeft << MOVEBITS) | move);
+    }
+
+    // @return position of the tile that slides into the blank spot with the given move
+    private static int tilePosition(int blankPos, int move)
+    {
+        int row = Constants.arrToBoardRowMapping[blankPos]
+                + Constants.moveRowOffset[move];
+        int col = Constants.arrToBoardColMapping[blankPos]
+                + Constants.moveColOffset[move];
+        return row * Constants.numCols + col;
+    }
+}
@@ -0,0 +1,18 @@
+/*
+Interface: SolutionListener
+Receives the solutions of an anytime search (SearchMode.ANYTIME) as soon as they are
+found: first a quick one, then each shorter one, so a caller can start playing back or
+writing a solution before the search ends. It is called on the search's thread. A
+listener that needs no shorter solution may end the search with SearchTree.stop().
+*/
+
+import java.util.Stack;
+
+public interface SolutionListener
+{
+    // @param solutionPathStack: new solution, in the shape of
+    //        SearchTree.createSolutionPath; the listener may keep and modify it
+    // @param isShortest: true if no shorter solution exists. The last solution is
+    //        reported again with true once the search proves it shortest.
+    void solutionFound(Stack<Node> solutionPathStack, boolean isShortest);
+}
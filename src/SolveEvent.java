@@ -0,0 +1,83 @@
+/*
+Class: SolveEvent
+Java Flight Recorder event of one solve, with the board and its SearchMetrics. Record
+it with, for example,
+
+    java -XX:StartFlightRecording=filename=solves.jfr,settings=profile BatchSolver ...
+    jfr print --events tiles.Solve solves.jfr
+
+A threshold on tiles.Solve in a .jfc settings file keeps only the slow solves. When no
+recording is running the event is not committed and costs almost nothing.
+*/
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("tiles.Solve")
+@Label("Puzzle Solve")
+@Category("Tiles Puzzle")
+@Description("One board solved by a SearchTree, IDAStarSearch or SMAStarSearch")
+@StackTrace(false)
+class SolveEvent extends Event
+{
+    @Label("Solver")
+    String solver;
+
+    @Label("Board")
+    String board;
+
+    @Label("Solution Length")
+    int solutionLength;
+
+    @Label("Nodes Generated")
+    long nodesGenerated;
+
+    @Label("Nodes Expanded")
+    long nodesExpanded;
+
+    @Label("Duplicates Pruned")
+    long duplicatesPruned;
+
+    @Label("Nodes Reopened")
+    long nodesReopened;
+
+    @Label("Nodes Forgotten")
+    long nodesForgotten;
+
+    @Label("Peak Open List Size")
+    int peakOpenListSize;
+
+    @Label("Peak Memory")
+    @DataAmount
+    long peakMemoryBytes;
+
+    @Label("Setup Time")
+    @Timespan
+    long setupTime;
+
+    // Commits the event, if it is recorded, with the results of the solve
+    void report(long boardKey, SearchMetrics metrics)
+    {
+        end();
+        if(!shouldCommit())
+            return;
+        solver = metrics.solver;
+        board = new Board(boardKey).getBoardAsString();
+        solutionLength = metrics.solutionLength;
+        nodesGenerated = metrics.nodesGenerated;
+        nodesExpanded = metrics.nodesExpanded;
+        duplicatesPruned = metrics.duplicatesPruned;
+        nodesReopened = metrics.nodesReopened;
+        nodesForgotten = metrics.nodesForgotten;
+        peakOpenListSize = metrics.peakOpenListSize;
+        peakMemoryBytes = metrics.peakMemoryBytes;
+        setupTime = metrics.setupNanos;
+        commit();
+    }
+}
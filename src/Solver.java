@@ -0,0 +1,15 @@
+/*
+Interface: Solver
+A search engine that solves a board. The solution path has the shape produced by
+SearchTree.createSolutionPath: the board after the first move is on top of the stack
+and the last board is on the bottom (the root board is not included), so the GUI and
+console can play back any engine the same way.
+*/
+
+import java.util.Stack;
+
+public interface Solver
+{
+    // @return solution path from the given board
+    Stack<Node> solve(Node rootNode);
+}
@@ -0,0 +1,432 @@
+/*
+Class: SolverService
+Headless solver service: a long running HTTP server (the JDK's com.sun.net.httpserver)
+on the loopback address, so boards can be solved without starting a JVM per puzzle and
+the heuristic tables and solution cache stay warm for every client.
+
+    GET  /solve?board=245386107     one result line
+    POST /solve                     boards one per line in the body, one result line
+                                    per board in the same order
+    GET  /stats                     counters of the service
+
+Result lines are those of BatchSolver (board, moves, length, boards tried, time in ms).
+
+Boards are solved on a fixed pool of solver threads, each with its own IDAStarSearch
+(linear conflict heuristic). Boards already in the shared SolutionCache, and boards
+impossible to solve, are answered on the connection's thread without queueing for a
+solver. Requests for a board that is already being solved wait for that solve instead
+of starting another one. The pool has a bounded queue: when it is full the service
+answers 503 with a Retry-After header instead of queueing more work than it can
+finish. A POSTed batch is fed to the pool in windows of at most the queue length, as
+BatchSolver does, so a batch longer than the queue is not turned away on its own. HTTP
+connections are handled on virtual threads where the JVM has them (Java 21), otherwise
+on a fixed pool.
+
+With -archive, boards in a SolutionArchive of precomputed solutions are answered from
+it on the connection's thread too.
+
+    java SolverService [-port N] [-threads N] [-queue N] [-width N] [-archive file]
+*/
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SolverService
+{
+    private static final int DEFAULTPORT = 8342;
+    private static final int QUEUEPERTHREAD = 64;       // Default queue length
+    private static final int IOTHREADS = 64;            // Without virtual threads
+    private static final int MAXBATCH = 10000;          // Most boards per request
+    private static final int RETRYAFTERSECONDS = 1;
+
+    private HttpServer              server;
+    private ThreadPoolExecutor      solverPool;
+    private ExecutorService         ioExecutor;
+    private ThreadLocal<IDAStarSearch> solvers;         // One solver per pool thread
+    private SolutionCache           cache;              // Shared by all threads
+    private SolutionArchive         archive;            // Precomputed, null if none
+    private int                     batchWindow;        // Most boards of a batch queued
+
+    // Boards being solved by board key, so concurrent requests for a board share one
+    // solve however its string is written
+    private ConcurrentHashMap<Long, CompletableFuture<String>> inFlight;
+
+    private AtomicLong              numRequests;
+    private AtomicLong              numBoards;
+    private AtomicLong              numCoalesced;       // Boards that joined a solve
+    private AtomicLong              numRejected;        // Requests answered with 503
+    private AtomicLong              numArchived;        // Boards found in the archive
+
+    // CONSTRUCTOR
+    public SolverService(int port, int numThreads, int queueSize) throws IOException
+    {
+        cache = new SolutionCache(Constants.SOLUTIONCACHESIZE);
+        solvers = new ThreadLocal<IDAStarSearch>()
+        {
+            @Override
+            protected IDAStarSearch initialValue()
+            {
+                return new IDAStarSearch(new LinearConflictHeuristic());
+            }
+        };
+        inFlight = new ConcurrentHashMap<Long, CompletableFuture<String>>();
+        numRequests = new AtomicLong();
+        numBoards = new AtomicLong();
+        numCoalesced = new AtomicLong();
+        numRejected = new AtomicLong();
+        numArchived = new AtomicLong();
+        archive = null;
+        batchWindow = queueSize;
+
+        // Bounded queue, and execute() throws once it is full
+        solverPool = new ThreadPoolExecutor(numThreads, numThreads, 0,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                new ThreadFactory()
+                {
+                    private AtomicInteger numCreated = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable task)
+                    {
+                        Thread thread = new Thread(task,
+                                "SolverService-" + numCreated.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        ioExecutor = createIoExecutor();
+
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                handleSolve(exchange);
+            }
+        });
+        server.createContext("/stats", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                handleStats(exchange);
+            }
+        });
+        server.setExecutor(ioExecutor);
+    }
+
+    public void start()
+    {
+        server.start();
+    }
+
+    // Stops accepting requests, waits at most the given seconds for open exchanges and
+    // stops the threads
+    public void stop(int delaySeconds)
+    {
+        server.stop(delaySeconds);
+        solverPool.shutdownNow();
+        ioExecutor.shutdownNow();
+    }
+
+    // Answers the boards of an archive from it instead of solving them
+    public void setArchive(SolutionArchive archive)
+    {
+        this.archive = archive;
+    }
+
+    // @return port the service listens on
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    // Answers a board from the archive or the cache, starts solving it, or joins the
+    // solve already running for it
+    // @return result line of the board when done
+    // @throws RejectedExecutionException if the solver queue is full
+    CompletableFuture<String> submit(String boardString)
+    {
+        numBoards.incrementAndGet();
+        if(!BatchSolver.isValidBoard(boardString))
+            return CompletableFuture.completedFuture(boardString + " invalid -1 0 0");
+
+        final Board board = new Board(boardString);
+        if(!board.isSolvable())
+            return CompletableFuture.completedFuture(boardString + " unsolvable -1 0 0");
+
+        final Long boardKey = board.getBoardKey();
+        long start = System.nanoTime();
+        if(archive != null)
+        {
+            Solution solution = archive.get(boardKey);
+            if(solution != null)
+            {
+                numArchived.incrementAndGet();
+                return CompletableFuture.completedFuture(BatchSolver.resultLine(
+                        solution, 0, System.nanoTime() - start));
+            }
+        }
+        Solution solution = cache.getSolution(board);
+        if(solution != null)
+            return CompletableFuture.completedFuture(BatchSolver.resultLine(
+                    solution, 0, System.nanoTime() - start));
+
+        final CompletableFuture<String> result = new CompletableFuture<String>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(boardKey, result);
+        if(running != null)
+        {
+            numCoalesced.incrementAndGet();
+            return running;
+        }
+
+        try
+        {
+            solverPool.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        result.complete(solveBoard(board));
+                    }
+                    catch(Throwable e)
+                    {
+                        result.completeExceptionally(e);
+                    }
+                    finally
+                    {
+                        inFlight.remove(boardKey, result);
+                    }
+                }
+            });
+        }
+        catch(RejectedExecutionException e)
+        {
+            inFlight.remove(boardKey, result);
+            throw e;
+        }
+        return result;
+    }
+
+    // Solves one solvable board with the pool thread's own solver and caches it
+    // @return result line of the board
+    private String solveBoard(Board board)
+    {
+        long start = System.nanoTime();
+        IDAStarSearch solver = solvers.get();
+        Solution solution = Solution.solve(solver, new Node(board));
+        if(solution.getLength() > 0)
+            cache.put(solution);
+        return BatchSolver.resultLine(solution, solver.getNumMovesTried(),
+                                      System.nanoTime() - start);
+    }
+
+    private void handleSolve(HttpExchange exchange) throws IOException
+    {
+        numRequests.incrementAndGet();
+        List<String> boardStrings = new ArrayList<String>();
+        String method = exchange.getRequestMethod();
+        if(method.equals("GET"))
+        {
+            String boardString = queryParameter(exchange.getRequestURI(), "board");
+            if(boardString == null)
+            {
+                respond(exchange, 400, "Missing board parameter\n");
+                return;
+            }
+            boardStrings.add(boardString.trim());
+        }
+        else if(method.equals("POST"))
+        {
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    exchange.getRequestBody(), StandardCharsets.UTF_8));
+            String line;
+            while((line = in.readLine()) != null)
+            {
+                if(line.trim().isEmpty())
+                    continue;
+                if(boardStrings.size() == MAXBATCH)
+                {
+                    respond(exchange, 413, "At most " + MAXBATCH + " boards per " +
+                            "request\n");
+                    return;
+                }
+                boardStrings.add(line.trim());
+            }
+        }
+        else
+        {
+            exchange.getResponseHeaders().set("Allow", "GET, POST");
+            respond(exchange, 405, "Use GET or POST\n");
+            return;
+        }
+
+        // Queue a window of boards so a batch is solved in parallel; once the window
+        // is full, wait for the oldest result before queueing the next board. The
+        // queue is shared, so other requests may still fill it: boards queued before
+        // then are still solved and cached for the retry.
+        ArrayDeque<CompletableFuture<String>> pending =
+                new ArrayDeque<CompletableFuture<String>>(batchWindow);
+        StringBuilder sb = new StringBuilder();
+        try
+        {
+            for(String boardString: boardStrings)
+            {
+                if(pending.size() == batchWindow)
+                    sb.append(pending.poll().get()).append('\n');
+                pending.add(submit(boardString));
+            }
+            while(!pending.isEmpty())
+                sb.append(pending.poll().get()).append('\n');
+        }
+        catch(RejectedExecutionException e)
+        {
+            numRejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After",
+                                              String.valueOf(RETRYAFTERSECONDS));
+            respond(exchange, 503, "Solver queue is full, retry later\n");
+            return;
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Service is stopping\n");
+            return;
+        }
+        catch(ExecutionException e)
+        {
+            respond(exchange, 500, "Solve failed: " + e.getCause() + "\n");
+            return;
+        }
+        respond(exchange, 200, sb.toString());
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException
+    {
+        respond(exchange, 200,
+                "requests " + numRequests.get() + "\n" +
+                "boards " + numBoards.get() + "\n" +
+                "coalesced " + numCoalesced.get() + "\n" +
+                "rejected " + numRejected.get() + "\n" +
+                "archived " + numArchived.get() + "\n" +
+                "solving " + solverPool.getActiveCount() + "\n" +
+                "queued " + solverPool.getQueue().size() + "\n" +
+                "cache size " + cache.size() + "\n" +
+                "cache hits " + cache.getHits() + "\n" +
+                "cache misses " + cache.getMisses() + "\n");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body)
+            throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    // @return value of a query parameter, or null if it is missing
+    private static String queryParameter(URI uri, String name)
+    {
+        String query = uri.getQuery();
+        if(query == null)
+            return null;
+        for(String parameter: query.split("&"))
+        {
+            if(parameter.startsWith(name + "="))
+                return parameter.substring(name.length() + 1);
+        }
+        return null;
+    }
+
+    // @return an executor starting a virtual thread per task on Java 21 and later,
+    //         otherwise a fixed pool
+    private static ExecutorService createIoExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e)
+        {
+            return Executors.newFixedThreadPool(IOTHREADS);
+        }
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        int port = DEFAULTPORT;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        int queueSize = 0;
+        String archiveName = null;
+        for(int x = 0; x < args.length; x++)
+        {
+            if(args[x].equals("-port") && x + 1 < args.length)
+                port = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-threads") && x + 1 < args.length)
+                numThreads = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-queue") && x + 1 < args.length)
+                queueSize = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-width") && x + 1 < args.length)
+                Constants.setPuzzleWidth(Integer.parseInt(args[++x]));
+            else if(args[x].equals("-archive") && x + 1 < args.length)
+                archiveName = args[++x];
+            else
+            {
+                System.err.println("Usage: java SolverService [-port N] [-threads N] " +
+                        "[-queue N] [-width N] [-archive file]");
+                return;
+            }
+        }
+        if(queueSize <= 0)
+            queueSize = numThreads * QUEUEPERTHREAD;
+
+        final SolverService service = new SolverService(port, numThreads, queueSize);
+        if(archiveName != null)
+            service.setArchive(new SolutionArchive(Paths.get(archiveName)));
+        Runtime.getRuntime().addShutdownHook(new Thread()
+        {
+            @Override
+            public void run()
+            {
+                service.stop(1);
+            }
+        });
+        service.start();
+        System.err.println("Solving " + (Constants.BOARDSIZE - 1) + " tiles puzzles on " +
+                "http://localhost:" + service.getPort() + "/solve with " + numThreads +
+                " threads.");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+Class: Successors
+This class is a reusable buffer filled by Board.generateSuccessors with the boards
+reachable in one move: the packed board, the new blank position (the position the
+moved tile came from), the move made and the board's heuristic value. A search keeps
+one instance and overwrites it on every expansion instead of allocating a list per
+board.
+*/
+
+public class Successors
+{
+    private long[]  boardKeys;
+    private int[]   blankPositions;
+    private int[]   moves;
+    private int[]   heuristicValues;
+    private int     size;
+
+    // CONSTRUCTOR
+    public Successors()
+    {
+        boardKeys = new long[Constants.NUMMOVES];
+        blankPositions = new int[Constants.NUMMOVES];
+        moves = new int[Constants.NUMMOVES];
+        heuristicValues = new int[Constants.NUMMOVES];
+        size = 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public long getBoardKey(int index)
+    {
+        return boardKeys[index];
+    }
+
+    public int getBlankPos(int index)
+    {
+        return blankPositions[index];
+    }
+
+    public int getMove(int index)
+    {
+        return moves[index];
+    }
+
+    public int getHeuristicValue(int index)
+    {
+        return heuristicValues[index];
+    }
+
+    void set(int index, long boardKey, int blankPos, int move, int heuristicValue)
+    {
+        boardKeys[index] = boardKey;
+        blankPositions[index] = blankPos;
+        moves[index] = move;
+        heuristicValues[index] = heuristicValue;
+    }
+
+    void setSize(int size)
+    {
+        this.size = size;
+    }
+}
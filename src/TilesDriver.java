@@ -37,6 +37,10 @@ public class TilesDriver extends JFrame
 
     public static void main(String[] args)
     {
+        // Optional argument: board width, i.e. 4 for the 15 tiles puzzle
+        if(args.length > 0)
+            Constants.setPuzzleWidth(Integer.parseInt(args[0]));
+
         TilesDriver driver = new TilesDriver();
         //driver.startGame();  // CONSOLE VERSION - LEFT INTENTIONALLY
 
@@ -97,7 +101,7 @@ public class TilesDriver extends JFrame
             else // MODE: User game play
             {
                 // Try user's next move, if invalid print error, otherwise update board
-                String newBoard = node.getBoard().makeMove(tileToMove);
+                Board newBoard = node.getBoard().makeMove(tileToMove);
                 if(newBoard == null)
                 {
                     System.out.println("*** Invalid move. Please retry.");
@@ -117,7 +121,7 @@ public class TilesDriver extends JFrame
     private void autoSolveMode(Node node)
     {
         System.out.println("Solving puzzle automatically...............");
-        SearchTree st = new SearchTree();
+        SearchTree st = new SearchTree(SearchMode.TABLE);
         Node solutionNode = st.autoSolve(node);
 
         // If heuristic value is 0, print solution path and exit
@@ -129,7 +133,7 @@ public class TilesDriver extends JFrame
         }
         else
         {
-            // Set moveCount to size of hashmap to show all possibilities have been tried
+            // Set moveCount to size of hashmap to show how many possibilities were tried
             moveCount = st.getNumMovesTried();
             printImpossibleSolution(solutionNode);
         }
@@ -160,7 +164,7 @@ public class TilesDriver extends JFrame
     private void printImpossibleSolution(Node solutionNode)
     {
         System.out.println("\n");
-        System.out.println("All "+moveCount+" moves have been " +
+        System.out.println(moveCount+" moves have been " +
                 "tried.");
         System.out.println("That puzzle is impossible to solve. Best board " +
                 "found was:");
@@ -229,7 +233,8 @@ public class TilesDriver extends JFrame
     {
         System.out.print("Some boards such as 728045163 are impossible.\n" +
                 "Others such as 245386107 are possible.\n" +
-                "Enter a string of 9 digits (including 0) for the board --> ");
+                "Enter a string of "+Constants.BOARDSIZE+" digits (including 0, a-f " +
+                "for 10-15) for the board --> ");
         Scanner sc = new Scanner(System.in);
         String userBoard = sc.next();
         return userBoard;
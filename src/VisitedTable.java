@@ -0,0 +1,177 @@
+/*
+Class: VisitedTable
+This class is the visited/transposition table used by SearchTree to determine if a board
+has been visited before. It maps a packed board key (see Board) to the index of its node
+and the number of moves (g) it took to reach it.
+
+It uses open addressing with linear probing over primitive parallel arrays, so an entry
+costs 16 bytes and no objects are created per board. Board key 0 can never be a valid
+board, so it marks an empty slot. The capacity is always a power of 2 and doubles when
+the table is 3/4 full; presizing it with the expected number of boards avoids resizing
+altogether.
+*/
+
+import java.util.Arrays;
+
+public class VisitedTable
+{
+    private static final long EMPTY = 0L;
+    private static final int  MINCAPACITY = 16;
+
+    private long[]  keys;
+    private int[]   nodeIndexes;
+    private int[]   gValues;
+    private int     mask;               // capacity - 1, capacity is a power of 2
+    private int     size;
+    private int     resizeThreshold;
+
+    // CONSTRUCTOR
+    // @param expectedSize: number of boards that fit without resizing
+    public VisitedTable(int expectedSize)
+    {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return mask + 1;
+    }
+
+    // @return approximate number of bytes held by the table
+    public long memoryBytes()
+    {
+        return (long) capacity() * (8 + 4 + 4);
+    }
+
+    // @return slot of the board, or -1 if the board has not been visited
+    public int find(long boardKey)
+    {
+        int slot = hash(boardKey) & mask;
+        while(true)
+        {
+            long key = keys[slot];
+            if(key == boardKey)
+                return slot;
+            if(key == EMPTY)
+                return -1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public boolean contains(long boardKey)
+    {
+        return find(boardKey) >= 0;
+    }
+
+    // Adds a board to the table if it has not been visited yet
+    // @return slot of the new entry, or -(slot + 1) if the board was already present
+    public int insert(long boardKey, int nodeIndex, int g)
+    {
+        if(size >= resizeThreshold)
+            grow();
+
+        int slot = hash(boardKey) & mask;
+        while(true)
+        {
+            long key = keys[slot];
+            if(key == boardKey)
+                return -(slot + 1);
+            if(key == EMPTY)
+            {
+                keys[slot] = boardKey;
+                nodeIndexes[slot] = nodeIndex;
+                gValues[slot] = g;
+                size++;
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public long getKey(int slot)
+    {
+        return keys[slot];
+    }
+
+    public int getNodeIndex(int slot)
+    {
+        return nodeIndexes[slot];
+    }
+
+    public int getG(int slot)
+    {
+        return gValues[slot];
+    }
+
+    // Updates an existing entry, i.e. when a board is reached by a shorter path
+    public void update(int slot, int nodeIndex, int g)
+    {
+        nodeIndexes[slot] = nodeIndex;
+        gValues[slot] = g;
+    }
+
+    // Empties the table but keeps its capacity for the next search
+    public void clear()
+    {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    // Doubles the capacity and reinserts every entry
+    private void grow()
+    {
+        long[] oldKeys = keys;
+        int[] oldNodeIndexes = nodeIndexes;
+        int[] oldGValues = gValues;
+
+        allocate(oldKeys.length * 2);
+        for(int x = 0; x < oldKeys.length; x++)
+        {
+            long key = oldKeys[x];
+            if(key == EMPTY)
+                continue;
+
+            int slot = hash(key) & mask;
+            while(keys[slot] != EMPTY)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            nodeIndexes[slot] = oldNodeIndexes[x];
+            gValues[slot] = oldGValues[x];
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        nodeIndexes = new int[capacity];
+        gValues = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity - (capacity >>> 2);
+    }
+
+    // @return smallest power of 2 capacity that holds expectedSize at 3/4 load
+    private static int capacityFor(int expectedSize)
+    {
+        long needed = Math.max(MINCAPACITY, (long) expectedSize + expectedSize / 3 + 1);
+        if(needed > (1 << 30))
+            throw new IllegalArgumentException("VisitedTable too large: " + expectedSize);
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    // Mixes all bits of the packed board so that similar boards spread out
+    // (finalizer of MurmurHash3)
+    static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
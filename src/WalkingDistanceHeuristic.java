@@ -0,0 +1,162 @@
+/*
+Class: WalkingDistanceHeuristic
+Walking distance: the puzzle is relaxed to tiles that only need to reach their goal
+row, where any tile of the row next to the blank may move into the blank's row. The
+state of this relaxed puzzle is how many tiles of each goal row are in each row (plus
+the blank's row), and the number of moves to solve it is an admissible estimate that
+also counts tiles blocking each other. The same is done for columns and both are added.
+
+All relaxed states are few, so their distances are precomputed once with a breadth
+first search back from the goal and stored in a VisitedTable keyed by the packed state.
+*/
+
+import java.util.Arrays;
+
+public class WalkingDistanceHeuristic implements Heuristic
+{
+    private static final int BITSPERCOUNT = 3;      // A row holds at most 7 tiles
+
+    private int             size;                   // Number of rows (and columns)
+    private VisitedTable    rowDistances;           // Relaxed state -> moves to goal
+    private VisitedTable    colDistances;
+
+    // CONSTRUCTOR
+    public WalkingDistanceHeuristic()
+    {
+        size = Constants.numRows;
+        if(size * (size - 1) * BITSPERCOUNT + BITSPERCOUNT > 63)
+            throw new IllegalArgumentException("Board too large for walking distance");
+
+        int blankGoalRow = Constants.tileGoalRow[0];
+        int blankGoalCol = Constants.tileGoalCol[0];
+        rowDistances = buildDistances(Constants.tileGoalRow, blankGoalRow);
+        colDistances = (blankGoalCol == blankGoalRow)? rowDistances:
+                buildDistances(Constants.tileGoalCol, blankGoalCol);
+    }
+
+    @Override
+    public int estimate(long boardKey)
+    {
+        long rowState = 0;
+        long colState = 0;
+        for(int pos = 0; pos < Constants.BOARDSIZE; pos++)
+        {
+            int tile = Board.tileAt(boardKey, pos);
+            int row = Constants.arrToBoardRowMapping[pos];
+            int col = Constants.arrToBoardColMapping[pos];
+            if(tile == 0)
+            {
+                rowState += blankLine(row);
+                colState += blankLine(col);
+            }
+            else
+            {
+                rowState += countUnit(row, Constants.tileGoalRow[tile]);
+                colState += countUnit(col, Constants.tileGoalCol[tile]);
+            }
+        }
+        return rowDistances.getG(rowDistances.find(rowState))
+                + colDistances.getG(colDistances.find(colState));
+    }
+
+    // The relaxed state is packed as a count (3 bits) for each (line, goal line) pair of
+    // all lines but the last one, which is implied, and the blank's line on top.
+    // @return value to add to a packed state for one tile in line with goal goalLine
+    private long countUnit(int line, int goalLine)
+    {
+        if(line == size - 1)
+            return 0;
+        return 1L << ((line * size + goalLine) * BITSPERCOUNT);
+    }
+
+    // @return value to add to a packed state for the blank in line
+    private long blankLine(int line)
+    {
+        return ((long) line) << ((size - 1) * size * BITSPERCOUNT);
+    }
+
+    // Breadth first search over all relaxed states back from the goal state
+    // @param goalLines: goal row (or column) of each tile
+    // @return table of the number of moves from each relaxed state to the goal
+    private VisitedTable buildDistances(int[] goalLines, int blankGoalLine)
+    {
+        // Goal: every tile in its goal line
+        int[][] counts = new int[size][size];
+        int[] lineTotals = new int[size];
+        for(int tile = 1; tile < Constants.BOARDSIZE; tile++)
+        {
+            counts[goalLines[tile]][goalLines[tile]]++;
+            lineTotals[goalLines[tile]]++;
+        }
+
+        VisitedTable distances = new VisitedTable(1024);
+        long[] queue = new long[1024];
+        int head = 0;
+        int tail = 0;
+        long goal = packState(counts, blankGoalLine);
+        distances.insert(goal, 0, 0);
+        queue[tail++] = goal;
+
+        while(head < tail)
+        {
+            long state = queue[head++];
+            int blank = unpackState(state, lineTotals, counts);
+            int moves = distances.getG(distances.find(state)) + 1;
+
+            // A tile of any goal line in a line next to the blank moves into its line
+            for(int next = blank - 1; next <= blank + 1; next += 2)
+            {
+                if(next < 0 || next >= size)
+                    continue;
+                for(int goalLine = 0; goalLine < size; goalLine++)
+                {
+                    if(counts[next][goalLine] == 0)
+                        continue;
+                    counts[next][goalLine]--;
+                    counts[blank][goalLine]++;
+                    long child = packState(counts, next);
+                    counts[blank][goalLine]--;
+                    counts[next][goalLine]++;
+
+                    if(distances.insert(child, 0, moves) >= 0)
+                    {
+                        if(tail == queue.length)
+                            queue = Arrays.copyOf(queue, tail * 2);
+                        queue[tail++] = child;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    private long packState(int[][] counts, int blankLine)
+    {
+        long state = blankLine(blankLine);
+        for(int line = 0; line < size - 1; line++)
+            for(int goalLine = 0; goalLine < size; goalLine++)
+                state += counts[line][goalLine] * countUnit(line, goalLine);
+        return state;
+    }
+
+    // Fills counts from a packed state, the last line from the tiles left over
+    // @param lineTotals: number of tiles of each goal line
+    // @return line of the blank
+    private int unpackState(long state, int[] lineTotals, int[][] counts)
+    {
+        for(int goalLine = 0; goalLine < size; goalLine++)
+            counts[size - 1][goalLine] = lineTotals[goalLine];
+
+        for(int line = 0; line < size - 1; line++)
+        {
+            for(int goalLine = 0; goalLine < size; goalLine++)
+            {
+                int count = (int) ((state >>> ((line * size + goalLine) * BITSPERCOUNT))
+                                   & ((1 << BITSPERCOUNT) - 1));
+                counts[line][goalLine] = count;
+                counts[size - 1][goalLine] -= count;
+            }
+        }
+        return (int) (state >>> ((size - 1) * size * BITSPERCOUNT));
+    }
+}
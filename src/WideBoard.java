@@ -0,0 +1,214 @@
+/*
+Class: WideBoard
+Board of any supported width, including the 5X5 puzzle (24 tiles) whose 25 cells do
+not fit the 4 bit cells of a packed long (see Board). Cells are packed 5 bits each
+into two longs: cell pos takes bits 5 * pos to 5 * pos + 4 of the 128 bit value
+high:low, so cell 12 is split between the two longs. A WideBoard is immutable and
+carries its PuzzleSpec, so boards of several widths can be used at once whatever the
+active puzzle in Constants.
+
+Board strings have one digit per cell in base 32 (0-9, then a-o for tiles 10 to 24),
+which reads the same as the hexadecimal board strings of the smaller puzzles.
+*/
+
+import java.util.SplittableRandom;
+
+public final class WideBoard
+{
+    public static final int BITSPERCELL = 5;
+    private static final long CELLMASK = (1L << BITSPERCELL) - 1;
+    private static final int RADIX = 32;
+
+    private final PuzzleSpec    puzzle;
+    private final long          low;            // Cells 0 to 11 and 4 bits of cell 12
+    private final long          high;           // Last bit of cell 12, cells 13 to 24
+    private final int           blankPos;
+
+    // CONSTRUCTOR
+    private WideBoard(PuzzleSpec puzzle, long low, long high, int blankPos)
+    {
+        this.puzzle = puzzle;
+        this.low = low;
+        this.high = high;
+        this.blankPos = blankPos;
+    }
+
+    // CHAINED CONSTRUCTOR Given tile at each position
+    public WideBoard(PuzzleSpec puzzle, int[] tiles)
+    {
+        this(puzzle, pack(tiles, 0), pack(tiles, 1), findBlankPos(puzzle, tiles));
+    }
+
+    // @return goal board of the given puzzle
+    public static WideBoard goal(PuzzleSpec puzzle)
+    {
+        int[] tiles = new int[puzzle.getBoardSize()];
+        for(int tile = 0; tile < tiles.length; tile++)
+            tiles[puzzle.getGoalPos(tile)] = tile;
+        return new WideBoard(puzzle, tiles);
+    }
+
+    // @param boardString: one base 32 digit per cell, every tile exactly once
+    // @return board of the string
+    // @throws IllegalArgumentException if the string is not a board of the puzzle
+    public static WideBoard parse(PuzzleSpec puzzle, String boardString)
+    {
+        int boardSize = puzzle.getBoardSize();
+        if(boardString.length() != boardSize)
+            throw new IllegalArgumentException("Board must have " + boardSize +
+                    " cells: " + boardString);
+
+        int[] tiles = new int[boardSize];
+        int seen = 0;                       // Bit set of tiles read
+        for(int pos = 0; pos < boardSize; pos++)
+        {
+            int tile = Character.digit(boardString.charAt(pos), RADIX);
+            if(tile < 0 || tile >= boardSize || (seen & (1 << tile)) != 0)
+                throw new IllegalArgumentException("Not a board: " + boardString);
+            seen |= 1 << tile;
+            tiles[pos] = tile;
+        }
+        return new WideBoard(puzzle, tiles);
+    }
+
+    // @return the board reached from the goal board by a random walk of the given
+    //         number of moves, never moving a tile straight back; it is solved in at
+    //         most that many moves
+    public static WideBoard randomWalk(PuzzleSpec puzzle, int numMoves,
+                                       SplittableRandom random)
+    {
+        WideBoard board = goal(puzzle);
+        int lastBlankPos = -1;
+        for(int x = 0; x < numMoves; x++)
+        {
+            int[] positions = puzzle.getSlidePositions(board.blankPos);
+            int tileToMovePos;
+            do
+                tileToMovePos = positions[random.nextInt(positions.length)];
+            while(tileToMovePos == lastBlankPos);
+
+            lastBlankPos = board.blankPos;
+            board = board.slideTile(tileToMovePos);
+        }
+        return board;
+    }
+
+    public PuzzleSpec getPuzzle()
+    {
+        return puzzle;
+    }
+
+    public int getBlankPos()
+    {
+        return blankPos;
+    }
+
+    // @return tile at the given position
+    public int tileAt(int pos)
+    {
+        int bit = pos * BITSPERCELL;
+        if(bit + BITSPERCELL <= Long.SIZE)
+            return (int) ((low >>> bit) & CELLMASK);
+        if(bit >= Long.SIZE)
+            return (int) ((high >>> (bit - Long.SIZE)) & CELLMASK);
+        return (int) (((low >>> bit) | (high << (Long.SIZE - bit))) & CELLMASK);
+    }
+
+    // @return tile at each position
+    public int[] getTiles()
+    {
+        int[] tiles = new int[puzzle.getBoardSize()];
+        for(int pos = 0; pos < tiles.length; pos++)
+            tiles[pos] = tileAt(pos);
+        return tiles;
+    }
+
+    // @return board after sliding the tile at tileToMovePos into the blank spot
+    public WideBoard slideTile(int tileToMovePos)
+    {
+        int[] tiles = getTiles();
+        tiles[blankPos] = tiles[tileToMovePos];
+        tiles[tileToMovePos] = 0;
+        return new WideBoard(puzzle, pack(tiles, 0), pack(tiles, 1), tileToMovePos);
+    }
+
+    public boolean isGoal()
+    {
+        return equals(goal(puzzle));
+    }
+
+    // Same test as Board.isSolvable: the parity of the permutation taking each cell to
+    // its tile's goal cell must equal the parity of the blank's distance from its goal
+    // @return true if the goal board can be reached from this board
+    public boolean isSolvable()
+    {
+        int boardSize = puzzle.getBoardSize();
+        int visitedCells = 0;               // Bit set of cells already in a cycle
+        int numCycles = 0;
+        for(int start = 0; start < boardSize; start++)
+        {
+            if((visitedCells & (1 << start)) != 0)
+                continue;
+            numCycles++;
+            for(int pos = start; (visitedCells & (1 << pos)) == 0;
+                pos = puzzle.getGoalPos(tileAt(pos)))
+                visitedCells |= 1 << pos;
+        }
+        int permutationParity = (boardSize - numCycles) & 1;
+        return permutationParity == (puzzle.getDistance(0, blankPos) & 1);
+    }
+
+    // @return one base 32 digit per cell, as read by parse()
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder(puzzle.getBoardSize());
+        for(int pos = 0; pos < puzzle.getBoardSize(); pos++)
+            sb.append(Character.forDigit(tileAt(pos), RADIX));
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if(!(other instanceof WideBoard))
+            return false;
+        WideBoard board = (WideBoard) other;
+        return low == board.low && high == board.high && puzzle == board.puzzle;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Long.hashCode(low * 0x9E3779B97F4A7C15L ^ high);
+    }
+
+    // @param word: 0 for the low long, 1 for the high long
+    // @return the bits of the given long of the packed tiles
+    private static long pack(int[] tiles, int word)
+    {
+        long packed = 0;
+        for(int pos = 0; pos < tiles.length; pos++)
+        {
+            int bit = pos * BITSPERCELL - word * Long.SIZE;
+            if(bit >= Long.SIZE || bit + BITSPERCELL <= 0)
+                continue;
+            packed |= (bit >= 0)? ((long) tiles[pos]) << bit:
+                                  ((long) tiles[pos]) >>> -bit;
+        }
+        return packed;
+    }
+
+    private static int findBlankPos(PuzzleSpec puzzle, int[] tiles)
+    {
+        if(tiles.length != puzzle.getBoardSize())
+            throw new IllegalArgumentException("Board must have " +
+                    puzzle.getBoardSize() + " cells");
+        for(int pos = 0; pos < tiles.length; pos++)
+        {
+            if(tiles[pos] == 0)
+                return pos;
+        }
+        throw new IllegalArgumentException("Board has no blank spot");
+    }
+}
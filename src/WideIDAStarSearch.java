@@ -0,0 +1,337 @@
+/*
+Class: WideIDAStarSearch
+IDA* (see IDAStarSearch) for WideBoards, so the 5X5 puzzle, whose boards do not fit a
+packed key, can be solved; it works for the smaller widths too. IDA* keeps no visited
+table, so it needs no hashing of boards: the board being searched is one tile array
+changed in place by every move and undone on backtracking.
+
+The heuristic is the city-block distance plus linear conflicts: in every row (column),
+the tiles whose goal is in that row (column) but not in goal order need two extra moves
+each for all but the longest run already in order. Only the tile that moved changes
+the distance, and only the two rows (vertical move) or columns (horizontal move) it
+left and entered change their conflicts, so a move costs two line updates of at most
+width tiles.
+
+Solutions are returned as move letters of Constants.MOVELETTERS, first move first.
+Counters and timings of the last solve are kept in a SearchMetrics. Random 5X5 boards
+can take hours; random walks of some dozens of moves (see WideBoard.randomWalk) take
+milliseconds to seconds.
+
+    java WideIDAStarSearch [-width N] [-walk N] [-count N] [-seed N] [board ...]
+
+solves the given boards, or count random walks of the given length, and prints result
+lines as BatchSolver does (board, moves, length, boards tried, time in ms).
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+public class WideIDAStarSearch
+{
+    private static final int FOUND = -1;
+    private static final int NOTFOUND = -2;
+    private static final int STOPPED = -3;
+
+    private PuzzleSpec      puzzle;
+    private int             width;
+    private int             maxDepth;           // Longest solution searched for
+    private int[]           tiles;              // Board being searched, changed in place
+    private int             distance;           // City-block distance of the board
+    private int[]           rowConflicts;       // Extra moves of each row
+    private int[]           colConflicts;       // Extra moves of each column
+    private int             conflicts;          // Sum of both arrays
+    private int[]           blankStack;         // Blank position at each depth
+    private int[]           childStack;         // Next successor to try at each depth
+    private int[]           moveStack;          // Move that reached each depth
+    private int[]           lineGoals;          // Scratch: goal places of a line's tiles
+    private int[]           runLengths;         // Scratch: longest ordered runs
+    private long            numMovesTried;
+    private int             numMoves;
+    private SearchMetrics   metrics;            // Of the last solve
+
+    // CONSTRUCTOR
+    public WideIDAStarSearch(PuzzleSpec puzzle)
+    {
+        this(puzzle, puzzle.getMaxSolutionLength());
+    }
+
+    // CHAINED CONSTRUCTOR Given longest solution to search for
+    public WideIDAStarSearch(PuzzleSpec puzzle, int maxDepth)
+    {
+        this.puzzle = puzzle;
+        this.maxDepth = maxDepth;
+        width = puzzle.getWidth();
+        rowConflicts = new int[width];
+        colConflicts = new int[width];
+        blankStack = new int[maxDepth + 1];
+        childStack = new int[maxDepth + 1];
+        moveStack = new int[maxDepth + 1];
+        lineGoals = new int[width];
+        runLengths = new int[width];
+        metrics = new SearchMetrics("WIDEIDASTAR");
+    }
+
+    // @return number of boards generated by the last solve
+    public long getNumMovesTried()
+    {
+        return numMovesTried;
+    }
+
+    // @return number of moves of the last solution
+    public int getNumMoves()
+    {
+        return numMoves;
+    }
+
+    // @return counters and timings of the last solve
+    public SearchMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    // @return letters of the moves of a shortest solution ("" for the goal board), or
+    //         null if the board is impossible to solve, no solution of at most
+    //         maxDepth moves exists or the thread was interrupted
+    public String solve(WideBoard rootBoard)
+    {
+        if(rootBoard.getPuzzle() != puzzle)
+            throw new IllegalArgumentException("Board is not " + width + "X" + width);
+
+        metrics = new SearchMetrics("WIDEIDASTAR");
+        long start = System.nanoTime();
+        numMovesTried = 0;
+        numMoves = 0;
+        String solution = null;
+        if(rootBoard.isSolvable())
+        {
+            tiles = rootBoard.getTiles();
+            blankStack[0] = rootBoard.getBlankPos();
+            int rootH = estimate();
+            int bound = rootH;
+            while(bound <= maxDepth)
+            {
+                bound = depthFirstSearch(rootH, bound);
+                if(bound == FOUND)
+                {
+                    StringBuilder sb = new StringBuilder(numMoves);
+                    for(int d = 1; d <= numMoves; d++)
+                        sb.append(Constants.MOVELETTERS.charAt(moveStack[d]));
+                    solution = sb.toString();
+                    metrics.solutionLength = numMoves;
+                    break;
+                }
+                if(bound == NOTFOUND || bound == STOPPED)
+                    break;
+            }
+        }
+        metrics.searchNanos = System.nanoTime() - start;
+        metrics.peakMemoryBytes = (maxDepth + 1) * 12L + (puzzle.getBoardSize() +
+                                  4 * width) * 4L;
+        return solution;
+    }
+
+    // Depth first search of all boards with f = g + h at most bound. If a solution is
+    // found, its moves are left on the move stack and numMoves is its length.
+    // @return FOUND, the lowest f above bound (the next bound), NOTFOUND if no board
+    //         exceeded the bound, or STOPPED if the thread was interrupted
+    private int depthFirstSearch(int rootHeuristicValue, int bound)
+    {
+        if(rootHeuristicValue == 0)
+            return FOUND;
+
+        int nextBound = Integer.MAX_VALUE;
+        int depth = 0;
+        childStack[0] = 0;
+        metrics.nodesExpanded++;
+
+        while(depth >= 0)
+        {
+            int blankPos = blankStack[depth];
+            int[] positions = puzzle.getSlidePositions(blankPos);
+            if(childStack[depth] == positions.length)
+            {
+                // All moves tried: move the tile back and backtrack
+                if(depth > 0)
+                    slide(blankStack[depth - 1], blankPos);
+                depth--;
+                continue;
+            }
+
+            int x = childStack[depth]++;
+            int tileToMovePos = positions[x];
+            if(depth > 0 && tileToMovePos == blankStack[depth - 1])
+            {
+                metrics.duplicatesPruned++;
+                continue;           // Undoes the previous move
+            }
+
+            numMovesTried++;
+            metrics.nodesGenerated++;
+            if((numMovesTried & (Constants.PROGRESSINTERVAL - 1)) == 0 &&
+               Thread.currentThread().isInterrupted())
+                return STOPPED;
+
+            slide(tileToMovePos, blankPos);
+            int h = distance + conflicts;
+            int f = depth + 1 + h;
+            if(f > bound)
+            {
+                if(f < nextBound)
+                    nextBound = f;
+                slide(blankPos, tileToMovePos);
+                continue;
+            }
+
+            depth++;
+            if(depth > metrics.peakOpenListSize)
+                metrics.peakOpenListSize = depth;
+            blankStack[depth] = tileToMovePos;
+            moveStack[depth] = puzzle.getSlideMoves(blankPos)[x];
+            childStack[depth] = 0;
+            if(h == 0)
+            {
+                numMoves = depth;
+                return FOUND;
+            }
+            metrics.nodesExpanded++;
+        }
+
+        return (nextBound == Integer.MAX_VALUE)? NOTFOUND: nextBound;
+    }
+
+    // Sets the distance and conflicts of the whole board
+    // @return heuristic value of the board
+    private int estimate()
+    {
+        distance = 0;
+        for(int pos = 0; pos < tiles.length; pos++)
+        {
+            if(tiles[pos] != 0)
+                distance += puzzle.getDistance(tiles[pos], pos);
+        }
+        conflicts = 0;
+        for(int line = 0; line < width; line++)
+        {
+            rowConflicts[line] = lineConflicts(line, true);
+            colConflicts[line] = lineConflicts(line, false);
+            conflicts += rowConflicts[line] + colConflicts[line];
+        }
+        return distance + conflicts;
+    }
+
+    // Slides the tile at from into the blank spot at to and updates the heuristic
+    private void slide(int from, int to)
+    {
+        int tile = tiles[from];
+        tiles[to] = tile;
+        tiles[from] = 0;
+        distance += puzzle.getDistance(tile, to) - puzzle.getDistance(tile, from);
+
+        // A vertical move changes the tile's row, a horizontal move its column
+        boolean vertical = (puzzle.getColOf()[from] == puzzle.getColOf()[to]);
+        int[] lineOf = vertical? puzzle.getRowOf(): puzzle.getColOf();
+        updateLine(lineOf[from], vertical);
+        updateLine(lineOf[to], vertical);
+    }
+
+    // Recounts the conflicts of one row or column
+    private void updateLine(int line, boolean isRow)
+    {
+        int[] lineValues = isRow? rowConflicts: colConflicts;
+        int value = lineConflicts(line, isRow);
+        conflicts += value - lineValues[line];
+        lineValues[line] = value;
+    }
+
+    // @param isRow: true for a row, false for a column
+    // @return extra moves of the tiles of a line whose goal is in that line: two for
+    //         each tile not in the longest run already in goal order
+    private int lineConflicts(int line, boolean isRow)
+    {
+        int[] goalLine = isRow? puzzle.getGoalRow(): puzzle.getGoalCol();
+        int[] goalPlace = isRow? puzzle.getGoalCol(): puzzle.getGoalRow();
+        int count = 0;
+        for(int x = 0; x < width; x++)
+        {
+            int tile = tiles[isRow? line * width + x: x * width + line];
+            if(tile != 0 && goalLine[tile] == line)
+                lineGoals[count++] = goalPlace[tile];
+        }
+
+        // Longest increasing subsequence of the goal places
+        int longest = 0;
+        for(int x = 0; x < count; x++)
+        {
+            runLengths[x] = 1;
+            for(int y = 0; y < x; y++)
+            {
+                if(lineGoals[y] < lineGoals[x] && runLengths[y] + 1 > runLengths[x])
+                    runLengths[x] = runLengths[y] + 1;
+            }
+            if(runLengths[x] > longest)
+                longest = runLengths[x];
+        }
+        return 2 * (count - longest);
+    }
+
+    public static void main(String[] args)
+    {
+        int width = PuzzleSpec.MAXWIDTH;
+        int walkLength = 40;
+        int count = 0;
+        long seed = 342;
+        List<String> boardStrings = new ArrayList<String>();
+        for(int x = 0; x < args.length; x++)
+        {
+            if(args[x].equals("-width") && x + 1 < args.length)
+                width = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-walk") && x + 1 < args.length)
+                walkLength = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-count") && x + 1 < args.length)
+                count = Integer.parseInt(args[++x]);
+            else if(args[x].equals("-seed") && x + 1 < args.length)
+                seed = Long.parseLong(args[++x]);
+            else if(!args[x].startsWith("-"))
+                boardStrings.add(args[x]);
+            else
+            {
+                System.err.println("Usage: java WideIDAStarSearch [-width N] [-walk N] " +
+                        "[-count N] [-seed N] [board ...]");
+                return;
+            }
+        }
+
+        PuzzleSpec puzzle = PuzzleSpec.forWidth(width);
+        List<WideBoard> boards = new ArrayList<WideBoard>();
+        for(String boardString: boardStrings)
+            boards.add(WideBoard.parse(puzzle, boardString));
+        if(boards.isEmpty() && count == 0)
+            count = 1;
+        SplittableRandom random = new SplittableRandom(seed);
+        for(int x = 0; x < count; x++)
+            boards.add(WideBoard.randomWalk(puzzle, walkLength, random));
+
+        WideIDAStarSearch solver = new WideIDAStarSearch(puzzle);
+        for(WideBoard board: boards)
+            System.out.println(resultLine(board, solver));
+    }
+
+    // Solves a board
+    // @return result line as written by BatchSolver
+    static String resultLine(WideBoard board, WideIDAStarSearch solver)
+    {
+        if(!board.isSolvable())
+            return board + " unsolvable -1 0 0";
+        long start = System.nanoTime();
+        String moves = solver.solve(board);
+        long time = System.nanoTime() - start;
+        if(moves == null)
+            return board + " unsolved -1 " + solver.getNumMovesTried() + " " +
+                    String.format(Locale.ROOT, "%.3f", time / 1e6);
+        return board + " " + (moves.isEmpty()? "-": moves) + " " + moves.length() +
+                " " + solver.getNumMovesTried() + " " +
+                String.format(Locale.ROOT, "%.3f", time / 1e6);
+    }
+}